@@ -0,0 +1,33 @@
+package com.github.zhouyutong.zorm.benchmark;
+
+import com.github.zhouyutong.zorm.annotation.PK;
+import com.github.zhouyutong.zorm.dao.elasticsearch.annotation.Document;
+import com.github.zhouyutong.zorm.dao.elasticsearch.annotation.Field;
+import com.github.zhouyutong.zorm.entity.IdEntity;
+import lombok.Data;
+
+/**
+ * 基准测试用的elasticsearch entity
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Data
+@Document(indexName = "bench_doc", typeName = "doc")
+public class BenchDoc implements IdEntity {
+    @PK
+    @Field
+    private String id;
+    @Field
+    private String title;
+    @Field
+    private Long authorId;
+    @Field
+    private Integer status;
+    @Field
+    private Double price;
+    @Field
+    private String tags;
+    @Field(isTransient = false)
+    private long esVersion;
+}
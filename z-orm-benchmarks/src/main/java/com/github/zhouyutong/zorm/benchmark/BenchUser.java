@@ -0,0 +1,37 @@
+package com.github.zhouyutong.zorm.benchmark;
+
+import com.github.zhouyutong.zorm.annotation.PK;
+import com.github.zhouyutong.zorm.dao.jdbc.annotation.Column;
+import com.github.zhouyutong.zorm.dao.jdbc.annotation.Table;
+import com.github.zhouyutong.zorm.entity.IdEntity;
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 基准测试用的关系数据库entity
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Data
+@Table("t_bench_user")
+public class BenchUser implements IdEntity {
+    @PK
+    @Column("id")
+    private Long id;
+    @Column("user_name")
+    private String userName;
+    @Column("age")
+    private Integer age;
+    @Column("email")
+    private String email;
+    @Column("score")
+    private Double score;
+    @Column("status")
+    private Integer status;
+    @Column("create_time")
+    private Date createTime;
+    @Column(value = "remark", isTransient = false)
+    private String remark;
+}
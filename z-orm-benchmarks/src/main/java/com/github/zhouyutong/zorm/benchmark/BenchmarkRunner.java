@@ -0,0 +1,33 @@
+package com.github.zhouyutong.zorm.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 在IDE中运行基准测试的入口,等价于 java -jar benchmarks.jar [include] -prof gc
+ * 开启gc profiler后每个基准都会同时输出吞吐量和gc.alloc.rate.norm(每次操作分配的字节数)
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * @param args - 可选,要运行的基准类名正则,默认全部
+     * @throws RunnerException
+     */
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.zhouyutong.zorm.benchmark.load;
+
+import com.github.zhouyutong.zorm.benchmark.BenchUser;
+import com.github.zhouyutong.zorm.query.Criteria;
+import com.github.zhouyutong.zorm.query.OrderBy;
+import com.github.zhouyutong.zorm.query.Pageable;
+import com.github.zhouyutong.zorm.query.Update;
+import com.google.common.collect.Lists;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 压测场景,每次迭代按readRatio决定执行读还是写
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public enum LoadScenario {
+    /**
+     * 读:findOneById 写:insert或updateById各半
+     */
+    CRUD {
+        @Override
+        void read(LoadTestContext ctx) {
+            Serializable id = ctx.randomId();
+            ctx.time("findOneById", () -> ctx.getDao().findOneById(id));
+        }
+
+        @Override
+        void write(LoadTestContext ctx) {
+            if (ThreadLocalRandom.current().nextBoolean()) {
+                insert(ctx);
+            } else {
+                updateStatus(ctx, ctx.randomId());
+            }
+        }
+    },
+    /**
+     * 读:按status分页并count总数 写:updateById
+     */
+    PAGING {
+        @Override
+        void read(LoadTestContext ctx) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Criteria criteria = Criteria.where("status", random.nextInt(STATUS_COUNT));
+            int pageSize = ctx.getConfig().getPageSize();
+            int maxPage = Math.max(1, ctx.getConfig().getTableRows() / STATUS_COUNT / pageSize);
+            Pageable pageable = new Pageable(random.nextInt(maxPage) + 1, pageSize);
+            List<OrderBy> orderBys = Lists.newArrayList(OrderBy.desc("id"));
+            ctx.time("findList(page)", () -> ctx.getDao().findList(criteria, orderBys, pageable));
+            ctx.time("countByCriteria", () -> ctx.getDao().countByCriteria(criteria));
+        }
+
+        @Override
+        void write(LoadTestContext ctx) {
+            updateStatus(ctx, ctx.randomId());
+        }
+    },
+    /**
+     * 读:findListByIds 写:updateByIds,每次batchSize个主键
+     */
+    BATCH {
+        @Override
+        void read(LoadTestContext ctx) {
+            List<Serializable> ids = randomIds(ctx);
+            ctx.time("findListByIds", () -> ctx.getDao().findListByIds(ids));
+        }
+
+        @Override
+        void write(LoadTestContext ctx) {
+            List<Serializable> ids = randomIds(ctx);
+            Update update = new Update().set("status", ThreadLocalRandom.current().nextInt(STATUS_COUNT));
+            ctx.time("updateByIds", () -> ctx.getDao().updateByIds(ids, update));
+        }
+    },
+    /**
+     * 读:findOneById 写:一个事务内先读再更新,最后插入一条
+     */
+    TRANSACTION {
+        @Override
+        void read(LoadTestContext ctx) {
+            CRUD.read(ctx);
+        }
+
+        @Override
+        void write(LoadTestContext ctx) {
+            Serializable id = ctx.randomId();
+            ctx.time("doInTransaction", () -> ctx.getTransactionManager().doInTransaction(() -> {
+                BenchUser user = ctx.getDao().findOneById(id);
+                if (user != null) {
+                    ctx.getDao().updateById(id, new Update().set("score", user.getScore() + 1.0D));
+                }
+                BenchUser newUser = LoadTestContext.newUser(ThreadLocalRandom.current().nextLong());
+                ctx.getDao().insert(newUser);
+                ctx.advanceMaxId(newUser.getId());
+                return newUser;
+            }));
+        }
+    };
+
+    static final int STATUS_COUNT = 10;
+
+    abstract void read(LoadTestContext ctx);
+
+    abstract void write(LoadTestContext ctx);
+
+    void runOnce(LoadTestContext ctx) {
+        if (ThreadLocalRandom.current().nextDouble() < ctx.getConfig().getReadRatio()) {
+            read(ctx);
+        } else {
+            write(ctx);
+        }
+        ctx.iterationDone();
+    }
+
+    private static void insert(LoadTestContext ctx) {
+        BenchUser user = LoadTestContext.newUser(ThreadLocalRandom.current().nextLong());
+        ctx.time("insert", () -> ctx.getDao().insert(user));
+        ctx.advanceMaxId(user.getId());
+    }
+
+    private static void updateStatus(LoadTestContext ctx, Serializable id) {
+        Update update = new Update().set("status", ThreadLocalRandom.current().nextInt(STATUS_COUNT));
+        ctx.time("updateById", () -> ctx.getDao().updateById(id, update));
+    }
+
+    private static List<Serializable> randomIds(LoadTestContext ctx) {
+        int batchSize = ctx.getConfig().getBatchSize();
+        List<Serializable> ids = Lists.newArrayListWithCapacity(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            ids.add(ctx.randomId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.zhouyutong.zorm.benchmark.load;
+
+import com.github.zhouyutong.zorm.exception.DaoException;
+import lombok.Data;
+
+/**
+ * 压测参数,通过命令行key=value覆盖默认值,如: scenario=PAGING threads=32 readRatio=0.9
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Data
+public class LoadTestConfig {
+    private LoadScenario scenario = LoadScenario.CRUD;
+    //并发线程数
+    private int threads = 16;
+    //连接池大小,小于等于0时与线程数相同
+    private int poolSize = 0;
+    private int warmupSeconds = 5;
+    private int durationSeconds = 30;
+    //每次操作是读的概率,其余为写
+    private double readRatio = 0.8D;
+    //预先插入的行数
+    private int tableRows = 10000;
+    private int pageSize = 20;
+    private int batchSize = 50;
+    //对应JdbcSettings的同名配置,用于比较开启前后的效果
+    private boolean readCoalescing = false;
+    private long idBatchWindowMicros = 0L;
+
+    public int getPoolSize() {
+        return poolSize > 0 ? poolSize : threads;
+    }
+
+    public static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            int i = arg.indexOf('=');
+            if (i <= 0) {
+                throw new DaoException("压测参数[" + arg + "]必须是key=value的形式");
+            }
+            String key = arg.substring(0, i).trim();
+            String value = arg.substring(i + 1).trim();
+            switch (key) {
+                case "scenario":
+                    config.setScenario(LoadScenario.valueOf(value.toUpperCase()));
+                    break;
+                case "threads":
+                    config.setThreads(Integer.parseInt(value));
+                    break;
+                case "poolSize":
+                    config.setPoolSize(Integer.parseInt(value));
+                    break;
+                case "warmupSeconds":
+                    config.setWarmupSeconds(Integer.parseInt(value));
+                    break;
+                case "durationSeconds":
+                    config.setDurationSeconds(Integer.parseInt(value));
+                    break;
+                case "readRatio":
+                    config.setReadRatio(Double.parseDouble(value));
+                    break;
+                case "tableRows":
+                    config.setTableRows(Integer.parseInt(value));
+                    break;
+                case "pageSize":
+                    config.setPageSize(Integer.parseInt(value));
+                    break;
+                case "batchSize":
+                    config.setBatchSize(Integer.parseInt(value));
+                    break;
+                case "readCoalescing":
+                    config.setReadCoalescing(Boolean.parseBoolean(value));
+                    break;
+                case "idBatchWindowMicros":
+                    config.setIdBatchWindowMicros(Long.parseLong(value));
+                    break;
+                default:
+                    throw new DaoException("不支持的压测参数[" + key + "]");
+            }
+        }
+        return config;
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.zhouyutong.zorm.benchmark.load;
+
+import com.github.zhouyutong.zorm.dao.jdbc.JdbcSettings;
+import com.github.zhouyutong.zorm.dao.jdbc.enums.DialectEnum;
+import com.github.zhouyutong.zorm.dao.jdbc.transaction.TransactionManager;
+import com.google.common.collect.Lists;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * 压测的spring配置,使用MySQL兼容模式的H2内存库,读写共用同一个连接池
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Configuration
+public class LoadTestConfiguration {
+    static final String JDBC_URL = "jdbc:h2:mem:z_orm_load_test;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+    @Autowired
+    private LoadTestConfig loadTestConfig;
+
+    @Bean(destroyMethod = "dispose")
+    public JdbcConnectionPool dataSource() {
+        JdbcConnectionPool pool = JdbcConnectionPool.create(JDBC_URL, "sa", "");
+        pool.setMaxConnections(loadTestConfig.getPoolSize());
+        return pool;
+    }
+
+    @Bean
+    public JdbcSettings loadTestJdbcSettings() {
+        DataSource dataSource = dataSource();
+        JdbcSettings jdbcSettings = new JdbcSettings();
+        jdbcSettings.setDialectEnum(DialectEnum.MYSQL);
+        jdbcSettings.setWriteDataSource(Lists.newArrayList(dataSource));
+        jdbcSettings.setReadDataSource(Lists.newArrayList(dataSource));
+        jdbcSettings.setReadCoalescing(loadTestConfig.isReadCoalescing());
+        jdbcSettings.setIdBatchWindowMicros(loadTestConfig.getIdBatchWindowMicros());
+        return jdbcSettings;
+    }
+
+    @Bean
+    public TransactionManager transactionManager() {
+        TransactionManager transactionManager = new TransactionManager();
+        transactionManager.setTxManager(new DataSourceTransactionManager(dataSource()));
+        return transactionManager;
+    }
+
+    @Bean
+    public LoadTestUserDao loadTestUserDao() {
+        return new LoadTestUserDao();
+    }
+}
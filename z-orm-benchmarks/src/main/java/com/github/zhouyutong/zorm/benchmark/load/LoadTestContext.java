@@ -0,0 +1,136 @@
+package com.github.zhouyutong.zorm.benchmark.load;
+
+import com.github.zhouyutong.zorm.benchmark.BenchUser;
+import com.github.zhouyutong.zorm.dao.jdbc.transaction.TransactionManager;
+import com.github.zhouyutong.zorm.dao.metrics.LatencyHistogram;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 压测线程共享的上下文,按dao方法记录调用方观察到的延迟
+ * 预热阶段不记录
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public class LoadTestContext {
+    @Getter
+    private final LoadTestConfig config;
+    @Getter
+    private final LoadTestUserDao dao;
+    @Getter
+    private final TransactionManager transactionManager;
+    //当前最大的主键,insert后推进,随机读写在[1,maxId]内选取主键
+    private final AtomicLong maxId;
+    private final ConcurrentHashMap<String, LatencyHistogram> latencyMap = new ConcurrentHashMap<String, LatencyHistogram>();
+    private final ConcurrentHashMap<String, LongAdder> errorMap = new ConcurrentHashMap<String, LongAdder>();
+    private final LongAdder iterations = new LongAdder();
+    private volatile boolean recording;
+
+    LoadTestContext(LoadTestConfig config, LoadTestUserDao dao, TransactionManager transactionManager, long maxId) {
+        this.config = config;
+        this.dao = dao;
+        this.transactionManager = transactionManager;
+        this.maxId = new AtomicLong(maxId);
+    }
+
+    /**
+     * 执行一次dao调用并记录延迟,异常只计数不抛出,避免一次失败中断压测线程
+     *
+     * @param method - 报告中的方法名
+     * @param call   - dao调用
+     * @return - dao方法的返回值,失败返回null
+     */
+    public <R> R time(String method, Supplier<R> call) {
+        long start = System.nanoTime();
+        try {
+            R r = call.get();
+            if (recording) {
+                histogram(method).record(System.nanoTime() - start);
+            }
+            return r;
+        } catch (RuntimeException e) {
+            if (recording) {
+                histogram(method).record(System.nanoTime() - start);
+                counter(method + " " + e.getClass().getSimpleName()).increment();
+            }
+            return null;
+        }
+    }
+
+    public Serializable randomId() {
+        return ThreadLocalRandom.current().nextLong(maxId.get()) + 1L;
+    }
+
+    public void advanceMaxId(Long id) {
+        long max;
+        while (id != null && id > (max = maxId.get()) && !maxId.compareAndSet(max, id)) {
+        }
+    }
+
+    public static BenchUser newUser(long seq) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BenchUser user = new BenchUser();
+        user.setUserName("user_" + seq);
+        user.setAge(18 + random.nextInt(50));
+        user.setEmail("user_" + seq + "@z-orm.com");
+        user.setScore(random.nextDouble(100.0D));
+        user.setStatus(random.nextInt(LoadScenario.STATUS_COUNT));
+        user.setCreateTime(new Date());
+        return user;
+    }
+
+    void iterationDone() {
+        if (recording) {
+            iterations.increment();
+        }
+    }
+
+    void startRecording() {
+        recording = true;
+    }
+
+    void stopRecording() {
+        recording = false;
+    }
+
+    long getIterations() {
+        return iterations.sum();
+    }
+
+    Map<String, LatencyHistogram.Snapshot> latencySnapshot() {
+        Map<String, LatencyHistogram.Snapshot> snapshotMap = new TreeMap<String, LatencyHistogram.Snapshot>();
+        for (Map.Entry<String, LatencyHistogram> entry : latencyMap.entrySet()) {
+            snapshotMap.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return snapshotMap;
+    }
+
+    Map<String, Long> errorSnapshot() {
+        Map<String, Long> errorCountMap = new TreeMap<String, Long>();
+        for (Map.Entry<String, LongAdder> entry : errorMap.entrySet()) {
+            errorCountMap.put(entry.getKey(), entry.getValue().sum());
+        }
+        return errorCountMap;
+    }
+
+    private LatencyHistogram histogram(String method) {
+        LatencyHistogram histogram = latencyMap.get(method);
+        return histogram != null ? histogram : latencyMap.computeIfAbsent(method, k -> new LatencyHistogram());
+    }
+
+    private LongAdder counter(String key) {
+        LongAdder counter = errorMap.get(key);
+        return counter != null ? counter : errorMap.computeIfAbsent(key, k -> new LongAdder());
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.zhouyutong.zorm.benchmark.load;
+
+import com.github.zhouyutong.zorm.benchmark.BenchUser;
+import com.github.zhouyutong.zorm.dao.jdbc.transaction.TransactionManager;
+import com.github.zhouyutong.zorm.dao.metrics.LatencyHistogram;
+import com.google.common.collect.Lists;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端的多线程压测,真实的JdbcBaseDao子类运行在MySQL兼容模式的H2内存库上
+ * 输出整体吞吐量和每个dao方法的延迟分位数,用于评估连接池大小和比较不同版本
+ * <p>
+ * 运行: java -cp benchmarks.jar com.github.zhouyutong.zorm.benchmark.load.LoadTestHarness scenario=CRUD threads=16 readRatio=0.8
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public final class LoadTestHarness {
+    private static final String DROP_TABLE = "DROP TABLE IF EXISTS t_bench_user";
+    private static final String CREATE_TABLE = "CREATE TABLE t_bench_user (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY," +
+            "user_name VARCHAR(64)," +
+            "age INT," +
+            "email VARCHAR(128)," +
+            "score DOUBLE," +
+            "status INT," +
+            "create_time TIMESTAMP," +
+            "remark VARCHAR(255))";
+    private static final String CREATE_STATUS_INDEX = "CREATE INDEX idx_bench_user_status ON t_bench_user (status, id)";
+    private static final String INSERT_ROW = "INSERT INTO t_bench_user (user_name,age,email,score,status,create_time) VALUES (?,?,?,?,?,?)";
+    private static final int SEED_BATCH_SIZE = 1000;
+    private static final double NANOS_PER_MILLI = 1000000.0D;
+
+    private LoadTestHarness() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+
+        AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext();
+        applicationContext.getBeanFactory().registerSingleton("loadTestConfig", config);
+        applicationContext.register(LoadTestConfiguration.class);
+        applicationContext.refresh();
+        try {
+            createAndSeed(applicationContext.getBean(DataSource.class), config.getTableRows());
+            LoadTestContext ctx = new LoadTestContext(config, applicationContext.getBean(LoadTestUserDao.class),
+                    applicationContext.getBean(TransactionManager.class), config.getTableRows());
+            run(ctx);
+        } finally {
+            applicationContext.close();
+        }
+    }
+
+    private static void createAndSeed(DataSource dataSource, int tableRows) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(DROP_TABLE);
+        jdbcTemplate.execute(CREATE_TABLE);
+        jdbcTemplate.execute(CREATE_STATUS_INDEX);
+
+        List<Object[]> batchArgs = Lists.newArrayListWithCapacity(SEED_BATCH_SIZE);
+        for (long seq = 1; seq <= tableRows; seq++) {
+            BenchUser user = LoadTestContext.newUser(seq);
+            batchArgs.add(new Object[]{user.getUserName(), user.getAge(), user.getEmail(), user.getScore(), user.getStatus(),
+                    new Timestamp(user.getCreateTime().getTime())});
+            if (batchArgs.size() == SEED_BATCH_SIZE || seq == tableRows) {
+                jdbcTemplate.batchUpdate(INSERT_ROW, batchArgs);
+                batchArgs.clear();
+            }
+        }
+    }
+
+    private static void run(LoadTestContext ctx) throws InterruptedException {
+        LoadTestConfig config = ctx.getConfig();
+        long warmupNanos = TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        long durationNanos = TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+        long begin = System.nanoTime();
+        final long measureStart = begin + warmupNanos;
+        final long deadline = measureStart + durationNanos;
+
+        CountDownLatch done = new CountDownLatch(config.getThreads());
+        for (int i = 0; i < config.getThreads(); i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        config.getScenario().runOnce(ctx);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "z-orm-load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        TimeUnit.NANOSECONDS.sleep(measureStart - System.nanoTime());
+        ctx.startRecording();
+        long recordStart = System.nanoTime();
+        done.await();
+        ctx.stopRecording();
+        report(ctx, System.nanoTime() - recordStart);
+    }
+
+    private static void report(LoadTestContext ctx, long elapsedNanos) {
+        LoadTestConfig config = ctx.getConfig();
+        double seconds = elapsedNanos / (NANOS_PER_MILLI * 1000.0D);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%nscenario=%s threads=%d poolSize=%d readRatio=%.2f tableRows=%d duration=%.1fs%n",
+                config.getScenario(), config.getThreads(), config.getPoolSize(), config.getReadRatio(), config.getTableRows(), seconds));
+        sb.append(String.format("iterations=%d throughput=%.1f ops/s%n%n", ctx.getIterations(), ctx.getIterations() / seconds));
+        sb.append(String.format("%-18s %10s %12s %10s %10s %10s %10s %10s%n",
+                "method", "count", "ops/s", "mean(ms)", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+        for (Map.Entry<String, LatencyHistogram.Snapshot> entry : ctx.latencySnapshot().entrySet()) {
+            LatencyHistogram.Snapshot s = entry.getValue();
+            sb.append(String.format("%-18s %10d %12.1f %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                    entry.getKey(), s.getCount(), s.getCount() / seconds, s.getMean() / NANOS_PER_MILLI,
+                    s.getValueAtPercentile(50.0D) / NANOS_PER_MILLI, s.getValueAtPercentile(99.0D) / NANOS_PER_MILLI,
+                    s.getValueAtPercentile(99.9D) / NANOS_PER_MILLI, s.getMax() / NANOS_PER_MILLI));
+        }
+        Map<String, Long> errorMap = ctx.errorSnapshot();
+        if (!errorMap.isEmpty()) {
+            sb.append(String.format("%nerrors:%n"));
+            for (Map.Entry<String, Long> entry : errorMap.entrySet()) {
+                sb.append(String.format("  %-40s %d%n", entry.getKey(), entry.getValue()));
+            }
+        }
+        System.out.print(sb);
+    }
+}
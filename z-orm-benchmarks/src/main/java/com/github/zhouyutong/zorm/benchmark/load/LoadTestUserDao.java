@@ -0,0 +1,15 @@
+package com.github.zhouyutong.zorm.benchmark.load;
+
+import com.github.zhouyutong.zorm.annotation.Dao;
+import com.github.zhouyutong.zorm.benchmark.BenchUser;
+import com.github.zhouyutong.zorm.dao.jdbc.JdbcBaseDao;
+
+/**
+ * 压测使用的dao
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Dao(settingBeanName = "loadTestJdbcSettings")
+public class LoadTestUserDao extends JdbcBaseDao<BenchUser> {
+}
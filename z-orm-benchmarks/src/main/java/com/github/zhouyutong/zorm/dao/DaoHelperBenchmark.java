@@ -0,0 +1,82 @@
+package com.github.zhouyutong.zorm.dao;
+
+import com.github.zhouyutong.zorm.benchmark.BenchUser;
+import com.github.zhouyutong.zorm.query.Update;
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DaoHelper反射访问entity属性的基准测试
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DaoHelperBenchmark {
+
+    private BenchUser user;
+    private Field userNameField;
+    private List<String> updateProperties;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        user = new BenchUser();
+        user.setId(10086L);
+        user.setUserName("zhouyutong");
+        user.setAge(30);
+        user.setEmail("zhouyutong@github.com");
+        user.setScore(88.8D);
+        user.setStatus(1);
+        user.setCreateTime(new Date());
+
+        userNameField = BenchUser.class.getDeclaredField("userName");
+        updateProperties = Lists.newArrayList("userName", "age", "status");
+    }
+
+    @Benchmark
+    public Object getColumnValueByField() {
+        return DaoHelper.getColumnValue(userNameField, user);
+    }
+
+    @Benchmark
+    public Object getColumnValueByName() {
+        return DaoHelper.getColumnValue("userName", user);
+    }
+
+    @Benchmark
+    public BenchUser setColumnValueByField() {
+        DaoHelper.setColumnValue(userNameField, user, "zhouyutong");
+        return user;
+    }
+
+    @Benchmark
+    public Field getPkField() {
+        return DaoHelper.getPkField(user);
+    }
+
+    @Benchmark
+    public Serializable getPkValue() {
+        return DaoHelper.getPkValue(user);
+    }
+
+    @Benchmark
+    public Update entity2UpdateAll() {
+        return DaoHelper.entity2Update(user, null);
+    }
+
+    @Benchmark
+    public Update entity2UpdatePartial() {
+        return DaoHelper.entity2Update(user, updateProperties);
+    }
+}
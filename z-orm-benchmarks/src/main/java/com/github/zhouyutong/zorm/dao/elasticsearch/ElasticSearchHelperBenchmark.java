@@ -0,0 +1,96 @@
+package com.github.zhouyutong.zorm.dao.elasticsearch;
+
+import com.github.zhouyutong.zorm.benchmark.BenchDoc;
+import com.github.zhouyutong.zorm.query.Criteria;
+import com.google.common.collect.Lists;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ElasticSearchHelper查询构建和文档解码的基准测试
+ * GetResponse和SearchHit在内存中构造,不连接es集群
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ElasticSearchHelperBenchmark {
+    private static final int HIT_SIZE = 20;
+
+    private Criteria simpleCriteria;
+    private Criteria complexCriteria;
+    private GetResponse getResponse;
+    private SearchHit[] searchHits;
+
+    @Setup
+    public void setup() {
+        simpleCriteria = Criteria.where("authorId", 10086L);
+        complexCriteria = Criteria.where("status", 1)
+                .gte("price", 10.0D)
+                .lt("price", 99.9D)
+                .in("authorId", Lists.newArrayList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L))
+                .ne("tags", "deleted")
+                .like("title", "z-orm")
+                .isNotNull("tags");
+
+        getResponse = new GetResponse(new GetResult("bench_doc", "doc", "doc-0", 3L, true,
+                new BytesArray(source(0)), Collections.emptyMap()));
+
+        searchHits = new SearchHit[HIT_SIZE];
+        for (int i = 0; i < HIT_SIZE; i++) {
+            SearchHit searchHit = new SearchHit(i, "doc-" + i, new Text("doc"), Collections.emptyMap());
+            searchHit.sourceRef(new BytesArray(source(i)));
+            searchHit.version(i + 1);
+            searchHits[i] = searchHit;
+        }
+    }
+
+    @Benchmark
+    public QueryBuilder criteria2QueryBuilderSimple() {
+        return ElasticSearchHelper.criteria2QueryBuilder(simpleCriteria);
+    }
+
+    @Benchmark
+    public QueryBuilder criteria2QueryBuilderComplex() {
+        return ElasticSearchHelper.criteria2QueryBuilder(complexCriteria);
+    }
+
+    @Benchmark
+    public BenchDoc decodeGetResponse() {
+        String source = ElasticSearchHelper.setEsVersion(getResponse, true);
+        return FastJson.jsonStr2Object(source, BenchDoc.class);
+    }
+
+    /**
+     * 与ElasticSearchHelper.getEntityList对每个hit的处理一致
+     */
+    @Benchmark
+    @OperationsPerInvocation(HIT_SIZE)
+    public List<BenchDoc> decodeSearchHits() {
+        List<BenchDoc> entityList = Lists.newArrayListWithCapacity(HIT_SIZE);
+        for (SearchHit searchHit : searchHits) {
+            String source = ElasticSearchHelper.setEsVersion(searchHit, true);
+            entityList.add(FastJson.jsonStr2Object(source, BenchDoc.class));
+        }
+        return entityList;
+    }
+
+    private static String source(int i) {
+        return "{\"id\":\"doc-" + i + "\",\"title\":\"z-orm benchmark " + i + "\",\"authorId\":" + (10000 + i)
+                + ",\"status\":1,\"price\":" + (i + 0.5D) + ",\"tags\":\"orm,dao,elasticsearch\"}";
+    }
+}
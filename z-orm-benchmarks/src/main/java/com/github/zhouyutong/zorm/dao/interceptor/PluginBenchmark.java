@@ -0,0 +1,80 @@
+package com.github.zhouyutong.zorm.dao.interceptor;
+
+import com.github.zhouyutong.zorm.benchmark.BenchUser;
+import com.github.zhouyutong.zorm.dao.IBaseDao;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plugin/InterceptorChain代理调用开销的基准测试
+ * target是一个直接返回固定值的IBaseDao桩,direct与其他基准的差值即为代理和拦截器的开销
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PluginBenchmark {
+
+    private IBaseDao<BenchUser> direct;
+    private IBaseDao<BenchUser> oneInterceptor;
+    private IBaseDao<BenchUser> threeInterceptors;
+    private Serializable id = 10086L;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        final BenchUser user = new BenchUser();
+        user.setId(10086L);
+        direct = (IBaseDao<BenchUser>) Proxy.newProxyInstance(IBaseDao.class.getClassLoader(), new Class<?>[]{IBaseDao.class},
+                (proxy, method, args) -> method.getReturnType() == long.class ? 1L : user);
+
+        InterceptorChain chain = new InterceptorChain();
+        chain.addInterceptor(new FindOneByIdInterceptor());
+        oneInterceptor = (IBaseDao<BenchUser>) chain.pluginAll(direct);
+
+        chain.addInterceptor(new FindOneByIdInterceptor());
+        chain.addInterceptor(new FindOneByIdInterceptor());
+        threeInterceptors = (IBaseDao<BenchUser>) chain.pluginAll(direct);
+    }
+
+    @Benchmark
+    public BenchUser direct() {
+        return direct.findOneById(id);
+    }
+
+    @Benchmark
+    public long notIntercepted() {
+        return threeInterceptors.countAll();
+    }
+
+    @Benchmark
+    public BenchUser oneInterceptor() {
+        return oneInterceptor.findOneById(id);
+    }
+
+    @Benchmark
+    public BenchUser threeInterceptors() {
+        return threeInterceptors.findOneById(id);
+    }
+
+    @Intercepts({@Signature(type = IBaseDao.class, method = "findOneById", args = {Serializable.class})})
+    public static class FindOneByIdInterceptor implements Interceptor {
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            return invocation.proceed();
+        }
+
+        @Override
+        public Object plugin(Object target) {
+            return Plugin.wrap(target, this);
+        }
+    }
+}
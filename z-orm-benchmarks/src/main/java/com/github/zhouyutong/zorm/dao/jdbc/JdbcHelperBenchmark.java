@@ -0,0 +1,131 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import com.github.zhouyutong.zorm.benchmark.BenchUser;
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.Dialect;
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.MySqlDialect;
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.Oracle11gDialect;
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.Oracle12cDialect;
+import com.github.zhouyutong.zorm.query.Criteria;
+import com.github.zhouyutong.zorm.query.OrderBy;
+import com.github.zhouyutong.zorm.query.Query;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.zhouyutong.zorm.dao.jdbc.JdbcHelper.*;
+
+/**
+ * JdbcHelper的sql拼装和行记录映射的基准测试
+ * 与JdbcBaseDao中的拼装顺序保持一致,不访问数据库
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JdbcHelperBenchmark {
+
+    private EntityMapper<BenchUser> entityMapper;
+    private Query simpleQuery;
+    private Query complexQuery;
+    private BenchUser user;
+    private Map<String, Object> row;
+
+    @Setup
+    public void setup() {
+        JdbcHelper.checkEntityClass(BenchUser.class);
+        entityMapper = new EntityMapper<BenchUser>(BenchUser.class);
+
+        simpleQuery = Query.query(Criteria.where("id", 1L));
+        complexQuery = Query.query(Criteria.where("status", 1)
+                .gte("age", 18)
+                .lt("score", 99.5D)
+                .in("id", Lists.newArrayList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L))
+                .like("userName", "zhou")
+                .isNotNull("email")
+                .ne("userName", "admin"))
+                .includeField("id", "userName", "age", "score")
+                .orderBy(OrderBy.desc("createTime"), OrderBy.asc("id"))
+                .offset(100)
+                .limit(20);
+
+        user = new BenchUser();
+        user.setId(10086L);
+        user.setUserName("zhouyutong");
+        user.setAge(30);
+        user.setEmail("zhouyutong@github.com");
+        user.setScore(88.8D);
+        user.setStatus(1);
+        user.setCreateTime(new Date());
+
+        //列名与ColumnMapRowMapper一致
+        row = Maps.newLinkedHashMap();
+        row.put("ID", 10086L);
+        row.put("USER_NAME", "zhouyutong");
+        row.put("AGE", 30);
+        row.put("EMAIL", "zhouyutong@github.com");
+        row.put("SCORE", 88.8D);
+        row.put("STATUS", 1);
+        row.put("CREATE_TIME", new Date());
+    }
+
+    @Benchmark
+    public String selectByIdMysql() {
+        return select(simpleQuery, MySqlDialect.INSTANCE);
+    }
+
+    @Benchmark
+    public String selectComplexMysql() {
+        return select(complexQuery, MySqlDialect.INSTANCE);
+    }
+
+    @Benchmark
+    public String selectComplexOracle() {
+        return select(complexQuery, Oracle11gDialect.INSTANCE);
+    }
+
+    @Benchmark
+    public String selectComplexOracle12c() {
+        return select(complexQuery, Oracle12cDialect.INSTANCE);
+    }
+
+    @Benchmark
+    public List<Object> whereComplex() {
+        List<Object> valueList = Lists.newArrayList();
+        String where = WHERE(complexQuery.getCriteria(), valueList, entityMapper);
+        valueList.add(where);
+        return valueList;
+    }
+
+    @Benchmark
+    public String insertMysql() {
+        List<Object> valueList = Lists.newArrayList();
+        return INSERT(user, valueList, entityMapper, BenchUser.class, MySqlDialect.INSTANCE, null);
+    }
+
+    @Benchmark
+    public BenchUser map2EntityRow() {
+        return map2Entity(row, entityMapper, BenchUser.class);
+    }
+
+    private String select(Query query, Dialect dialect) {
+        List<Object> valueList = Lists.newArrayList();
+        StringBuilder sql = new StringBuilder();
+        sql.append(SELECT(query, entityMapper));
+        sql.append(FROM(BenchUser.class));
+        sql.append(WHERE(query.getCriteria(), valueList, entityMapper));
+        sql.append(GROUP_BY(query.getGroupBys(), entityMapper));
+        sql.append(ORDER_BY(query.getOrderBys(), entityMapper));
+        sql.append(LIMIT(query.getOffset(), query.getLimit(), dialect, sql));
+        return sql.toString();
+    }
+}
@@ -17,4 +17,11 @@ public @interface Dao {
      * @return
      */
     String settingBeanName();
+
+    /**
+     * 标注主键布隆过滤器设置对象的bean,为空表示不开启
+     *
+     * @return
+     */
+    String bloomFilterSettingBeanName() default "";
 }
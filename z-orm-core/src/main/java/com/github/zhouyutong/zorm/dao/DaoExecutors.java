@@ -0,0 +1,144 @@
+package com.github.zhouyutong.zorm.dao;
+
+import com.github.zhouyutong.zorm.exception.DaoException;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * dao层内部共用的后台线程
+ * 所有线程均为daemon线程,不会阻止jvm退出
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public final class DaoExecutors {
+    /**
+     * 定时任务线程,用于周期性的后台维护工作(如重建索引),任务应尽量短小
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(1,
+            new ThreadFactoryBuilder().setNameFormat("z-orm-scheduler-%d").setDaemon(true).build());
+    /**
+     * 工作线程数上限,超过后任务排队,避免并发的大请求拉起大量线程耗尽连接池
+     */
+    private static final int MAX_WORKERS = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+    /**
+     * 工作线程,用于执行会访问数据源的异步任务,定时任务线程不能直接访问数据源
+     * 线程数有上限,任务可能排队,工作线程中的任务不能等待另一个工作线程任务的结果
+     */
+    private static final ExecutorService WORKER = newWorker();
+
+    private DaoExecutors() {
+    }
+
+    private static ExecutorService newWorker() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_WORKERS, MAX_WORKERS, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder().setNameFormat("z-orm-worker-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public static ScheduledExecutorService scheduler() {
+        return SCHEDULER;
+    }
+
+    public static ExecutorService worker() {
+        return WORKER;
+    }
+
+    /**
+     * 用最多parallelism个线程(含当前线程)处理items,结果和items一一对应
+     * 当前线程和工作线程从同一个下标取任务,工作线程排队没有执行时由当前线程处理完,只等待已经开始的任务,
+     * 因此可以在工作线程中调用
+     *
+     * @param items       - 需要处理的任务
+     * @param parallelism - 最多同时处理的任务数,小于等于1时在当前线程中顺序执行
+     * @param mapper      - 处理单个任务
+     * @return - 第一个失败任务的RuntimeException/Error原样抛出
+     */
+    public static <S, R> List<R> mapBounded(List<S> items, int parallelism, Function<S, R> mapper) {
+        int size = items.size();
+        AtomicReferenceArray<R> results = new AtomicReferenceArray<R>(size);
+        AtomicInteger next = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        CountDownLatch done = new CountDownLatch(size);
+        Runnable drain = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < size) {
+                try {
+                    if (failure.get() == null) {
+                        results.set(i, mapper.apply(items.get(i)));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        for (int k = 1; k < Math.min(parallelism, size); k++) {
+            WORKER.execute(drain);
+        }
+        drain.run();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DaoException("等待异步dao操作时线程被中断", e);
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        if (cause != null) {
+            throw new DaoException("异步dao操作执行失败", cause);
+        }
+        List<R> resultList = new ArrayList<R>(size);
+        for (int i = 0; i < size; i++) {
+            resultList.add(results.get(i));
+        }
+        return resultList;
+    }
+
+    /**
+     * 等待异步任务的结果,任务中的RuntimeException/Error原样抛出
+     *
+     * @param future
+     * @return
+     */
+    public static <V> V await(Future<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DaoException("等待异步dao操作时线程被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new DaoException("异步dao操作执行失败", cause);
+        }
+    }
+}
@@ -126,6 +126,16 @@ public class DaoHelper {
         }
     }
 
+    /**
+     * 校验聚合query
+     */
+    public static void checkArgumentAggregationQuery(Query query) {
+        checkArgumentQuery(query);
+        if (query.getAggregations().isEmpty()) {
+            throw new DaoMethodParameterException("Param query must have at least one aggregation");
+        }
+    }
+
     /**
      * 校验id
      */
@@ -244,6 +254,17 @@ public class DaoHelper {
         return daoAnnotation.settingBeanName();
     }
 
+    /**
+     * 得到dao对象的主键布隆过滤器设置bean名称
+     *
+     * @param daoClass
+     */
+    public static String getBloomFilterSettingsName(Class<?> daoClass) {
+        checkDaoClass(daoClass);
+        Dao daoAnnotation = daoClass.getAnnotation(Dao.class);
+        return daoAnnotation.bloomFilterSettingBeanName();
+    }
+
     /**
      * 得到entity的主键值
      *
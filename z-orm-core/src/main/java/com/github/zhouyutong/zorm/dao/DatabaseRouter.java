@@ -11,4 +11,12 @@ public interface DatabaseRouter {
     Object writeRoute();
 
     Object readRoute();
+
+    /**
+     * 得到路由结果对应的数据源名称,用于指标统计
+     *
+     * @param route - writeRoute或readRoute的返回值
+     * @return - 不是本路由器的路由结果返回null
+     */
+    String getRouteName(Object route);
 }
@@ -0,0 +1,140 @@
+package com.github.zhouyutong.zorm.dao;
+
+import com.github.zhouyutong.zorm.exception.DaoException;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * entity的快照和脏字段检查
+ * dao读出或写入entity后记录各字段值的快照,update(entity)时只更新和快照不同的字段
+ * entity按引用(==)识别且弱引用持有,不影响entity被回收
+ * 集合、Map、嵌套对象等无法安全复制的值每次都视为已修改
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public final class DirtyTracker {
+    private static final Set<Class<?>> IMMUTABLE_TYPES = ImmutableSet.<Class<?>>of(
+            String.class, Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class,
+            Boolean.class, Character.class, BigDecimal.class, BigInteger.class);
+    //无法复制的值的快照,和任何值都不相等
+    private static final Object UNTRACKABLE = new Object();
+
+    private final Field[] fields;
+    //MapMaker的weakKeys按引用比较key
+    private final ConcurrentMap<Object, Object[]> snapshotMap = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * @param entityClass   - entity类型
+     * @param propertyNames - 需要检查的属性,不应包含主键和不持久化的属性
+     */
+    public DirtyTracker(Class<?> entityClass, Collection<String> propertyNames) {
+        List<Field> fieldList = Lists.newArrayListWithCapacity(propertyNames.size());
+        for (String propertyName : propertyNames) {
+            try {
+                Field field = entityClass.getDeclaredField(propertyName);
+                field.setAccessible(true);
+                fieldList.add(field);
+            } catch (NoSuchFieldException e) {
+                throw new DaoException("entity[" + entityClass.getName() + "]没有属性[" + propertyName + "]", e);
+            }
+        }
+        this.fields = fieldList.toArray(new Field[fieldList.size()]);
+    }
+
+    /**
+     * 记录entity当前的快照,已有快照时覆盖
+     *
+     * @param entity
+     */
+    public void track(Object entity) {
+        if (entity == null) {
+            return;
+        }
+        Object[] snapshot = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            snapshot[i] = copy(DaoHelper.getColumnValue(fields[i], entity));
+        }
+        snapshotMap.put(entity, snapshot);
+    }
+
+    public <T> List<T> trackAll(List<T> entityList) {
+        if (entityList != null) {
+            for (T entity : entityList) {
+                track(entity);
+            }
+        }
+        return entityList;
+    }
+
+    /**
+     * 只更新已有快照中部分属性的值,用于单独加载了部分属性(如延迟加载的列)后,其余属性的修改仍然保留
+     *
+     * @param entity
+     * @param propertyNames - 需要更新快照的属性
+     */
+    public void trackProperties(Object entity, Collection<String> propertyNames) {
+        Object[] snapshot = entity == null ? null : snapshotMap.get(entity);
+        if (snapshot == null) {
+            return;
+        }
+        for (int i = 0; i < fields.length; i++) {
+            if (propertyNames.contains(fields[i].getName())) {
+                snapshot[i] = copy(DaoHelper.getColumnValue(fields[i], entity));
+            }
+        }
+    }
+
+    /**
+     * 和快照相比发生变化的属性
+     *
+     * @param entity
+     * @return - 没有快照返回null,没有变化返回空列表
+     */
+    public List<String> dirtyProperties(Object entity) {
+        Object[] snapshot = snapshotMap.get(entity);
+        if (snapshot == null) {
+            return null;
+        }
+        List<String> dirtyList = Lists.newArrayList();
+        for (int i = 0; i < fields.length; i++) {
+            Object value = DaoHelper.getColumnValue(fields[i], entity);
+            if (snapshot[i] == UNTRACKABLE || !Objects.deepEquals(snapshot[i], value)) {
+                dirtyList.add(fields[i].getName());
+            }
+        }
+        return dirtyList;
+    }
+
+    /**
+     * 不可变的值直接引用,Date和数组复制一份,其余的无法复制
+     */
+    private static Object copy(Object value) {
+        if (value == null || value instanceof Enum || IMMUTABLE_TYPES.contains(value.getClass())) {
+            return value;
+        }
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        }
+        if (value.getClass().isArray() && value.getClass().getComponentType().isPrimitive()) {
+            int length = Array.getLength(value);
+            Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, copy, 0, length);
+            return copy;
+        }
+        return UNTRACKABLE;
+    }
+}
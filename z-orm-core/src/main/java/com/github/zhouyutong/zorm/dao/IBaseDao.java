@@ -1,8 +1,10 @@
 package com.github.zhouyutong.zorm.dao;
 
+import com.github.zhouyutong.zorm.dao.export.ExportFormat;
 import com.github.zhouyutong.zorm.exception.DaoException;
 import com.github.zhouyutong.zorm.query.*;
 
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -19,7 +21,7 @@ public interface IBaseDao<T> {
 
     int insert(T entity) throws DaoException;
 
-    //更新实体所有属性
+    //更新实体所有属性,开启脏字段检查且没有变化时不访问存储,返回0;jdbc有Version字段时仍只更新version做乐观锁检查
     int update(T entity) throws DaoException;
 
     //更新实体中指定的属性
@@ -35,6 +37,12 @@ public interface IBaseDao<T> {
 
     int deleteById(Serializable id) throws DaoException;
 
+    //按主键批量删除,返回删除的记录数
+    int deleteByIds(List<Serializable> ids) throws DaoException;
+
+    //按条件删除,返回删除的记录数
+    int deleteByCriteria(Criteria criteria) throws DaoException;
+
     boolean exists(Serializable id) throws DaoException;
 
     boolean exists(Criteria criteria) throws DaoException;
@@ -45,6 +53,9 @@ public interface IBaseDao<T> {
 
     long countBySql(String sql, LinkedHashMap<String, Object> param) throws DaoException;
 
+    //按query中的group by和聚合函数聚合,只返回聚合结果
+    List<AggregationRow> aggregate(Query query) throws DaoException;
+
     T findOne(List<String> fields, Criteria criteria) throws DaoException;
 
     T findOne(Criteria criteria) throws DaoException;
@@ -55,12 +66,22 @@ public interface IBaseDao<T> {
 
     T findOneBySql(String sql, LinkedHashMap<String, Object> param) throws DaoException;
 
+    //结果按ids的顺序返回,重复的id只返回一次,数据库匹配到但主键值和传入不同的行(如大小写不敏感的字符串主键)追加在最后
     List<T> findListByIds(List<Serializable> ids) throws DaoException;
 
+    //key为ids中的id,按ids的顺序,不存在的id不包含在结果中;数据库匹配到但主键值和传入不同的行以数据库的主键为key追加在最后
+    LinkedHashMap<Serializable, T> findMapByIds(List<Serializable> ids) throws DaoException;
+
     List<T> findListByQuery(Query query) throws DaoException;
 
     List<T> findListByQuery(Query query, Pageable pageable) throws DaoException;
 
+    //一次返回当前页的数据和总数
+    Page<T> findPage(Query query, Pageable pageable) throws DaoException;
+
+    //按query流式导出到outputStream,不转换成entity,返回导出的行数,outputStream由调用方关闭
+    long export(Query query, OutputStream outputStream, ExportFormat format) throws DaoException;
+
     List<T> findListBySql(String sql, LinkedHashMap<String, Object> param) throws DaoException;
 
     List<T> findList(List<String> fields, Criteria criteria) throws DaoException;
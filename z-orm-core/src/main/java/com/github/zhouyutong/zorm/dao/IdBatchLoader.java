@@ -0,0 +1,174 @@
+package com.github.zhouyutong.zorm.dao;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 按主键查询的自动微批(DataLoader模式)
+ * 在时间窗口内或数量达到阈值前到达的单个主键查询合并成一次批量查询,再按主键分发给各调用者
+ * 主键统一按toString()匹配,同一批次内相同的主键只查询一次
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public final class IdBatchLoader<T> {
+    /**
+     * 批次大小分布的桶上界:1,2,4,8...,最后一个桶收集所有更大的批次
+     */
+    private static final int SIZE_BUCKETS = 12;
+
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final Function<List<Serializable>, Map<String, T>> batchFunction;
+    private final Object lock = new Object();
+    private Batch current;
+
+    private final LongAdder batchCount = new LongAdder();
+    private final LongAdder keyCount = new LongAdder();
+    private final AtomicLong maxSize = new AtomicLong();
+    private final AtomicLongArray sizeHistogram = new AtomicLongArray(SIZE_BUCKETS);
+
+    /**
+     * @param windowMicros  - 合并的时间窗口,微秒
+     * @param maxBatchSize  - 一批最多的主键数量,达到后立即执行
+     * @param batchFunction - 批量查询,返回存在的entity,key为主键的toString()
+     */
+    public IdBatchLoader(long windowMicros, int maxBatchSize, Function<List<Serializable>, Map<String, T>> batchFunction) {
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.batchFunction = batchFunction;
+    }
+
+    /**
+     * 加入当前批次并等待结果
+     *
+     * @param id
+     * @return - 对应的entity,不存在返回null
+     */
+    public T load(Serializable id) {
+        CompletableFuture<T> future;
+        Batch batchToRun = null;
+        synchronized (lock) {
+            if (current == null) {
+                final Batch batch = new Batch();
+                current = batch;
+                DaoExecutors.scheduler().schedule(() -> this.onWindowClosed(batch), windowMicros, TimeUnit.MICROSECONDS);
+            }
+            future = current.add(id);
+            if (current.size() >= maxBatchSize) {
+                batchToRun = current;
+                current = null;
+            }
+        }
+        if (batchToRun != null) {  //数量达到阈值由当前调用线程执行
+            batchToRun.run();
+        }
+        return DaoExecutors.await(future);
+    }
+
+    public Stats getStats() {
+        long[] histogram = new long[SIZE_BUCKETS];
+        for (int i = 0; i < SIZE_BUCKETS; i++) {
+            histogram[i] = sizeHistogram.get(i);
+        }
+        return new Stats(batchCount.sum(), keyCount.sum(), maxSize.get(), histogram);
+    }
+
+    private void onWindowClosed(Batch batch) {
+        synchronized (lock) {
+            if (current != batch) {    //已经因为数量达到阈值被执行
+                return;
+            }
+            current = null;
+        }
+        //定时线程不能访问数据源,交给工作线程
+        DaoExecutors.worker().execute(batch::run);
+    }
+
+    private void recordBatch(int size) {
+        batchCount.increment();
+        keyCount.add(size);
+        long max;
+        while (size > (max = maxSize.get()) && !maxSize.compareAndSet(max, size)) {
+        }
+        int bucket = Math.min(SIZE_BUCKETS - 1, 32 - Integer.numberOfLeadingZeros(size - 1));
+        sizeHistogram.incrementAndGet(bucket);
+    }
+
+    private final class Batch {
+        private final LinkedHashMap<String, Serializable> idMap = Maps.newLinkedHashMap();
+        private final Map<String, CompletableFuture<T>> futureMap = Maps.newHashMap();
+        private final AtomicBoolean executed = new AtomicBoolean(false);
+
+        CompletableFuture<T> add(Serializable id) {
+            String key = id.toString();
+            CompletableFuture<T> future = futureMap.get(key);
+            if (future == null) {
+                future = new CompletableFuture<T>();
+                futureMap.put(key, future);
+                idMap.put(key, id);
+            }
+            return future;
+        }
+
+        int size() {
+            return idMap.size();
+        }
+
+        void run() {
+            if (!executed.compareAndSet(false, true)) {
+                return;
+            }
+            recordBatch(idMap.size());
+            try {
+                Map<String, T> entityMap = batchFunction.apply(Lists.newArrayList(idMap.values()));
+                for (Map.Entry<String, CompletableFuture<T>> entry : futureMap.entrySet()) {
+                    entry.getValue().complete(entityMap.get(entry.getKey()));
+                }
+            } catch (Throwable e) {
+                for (CompletableFuture<T> future : futureMap.values()) {
+                    future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 微批的统计信息
+     */
+    @Getter
+    @ToString
+    public static final class Stats {
+        private final long batchCount;
+        private final long keyCount;
+        private final long maxBatchSize;
+        //下标i的桶表示批次大小在(2^(i-1), 2^i]之间的批次数
+        private final long[] sizeHistogram;
+
+        Stats(long batchCount, long keyCount, long maxBatchSize, long[] sizeHistogram) {
+            this.batchCount = batchCount;
+            this.keyCount = keyCount;
+            this.maxBatchSize = maxBatchSize;
+            this.sizeHistogram = sizeHistogram;
+        }
+
+        public double getAvgBatchSize() {
+            return batchCount == 0 ? 0.0D : (double) keyCount / batchCount;
+        }
+    }
+}
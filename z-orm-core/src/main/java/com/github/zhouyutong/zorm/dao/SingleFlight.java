@@ -0,0 +1,37 @@
+package com.github.zhouyutong.zorm.dao;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 并发相同读请求合并
+ * 同一时刻key相同的调用只有第一个真正执行,其余调用等待并共享其结果(或异常)
+ * 执行结束后key立即移除,不做任何缓存
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlightMap = new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> future = new CompletableFuture<V>();
+        CompletableFuture<V> inFlight = inFlightMap.putIfAbsent(key, future);
+        if (inFlight != null) {
+            return DaoExecutors.await(inFlight);
+        }
+
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightMap.remove(key, future);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.zhouyutong.zorm.dao.bloom;
+
+import lombok.Data;
+
+/**
+ * 主键布隆过滤器设置对象
+ * 通过Dao注解的bloomFilterSettingBeanName引用
+ * 过滤器判定不存在时findOneById、exists、findListByIds不再访问数据源,
+ * 只有当前dao实例是表的唯一写入方时才能开启,其他应用实例、其他服务或手写sql插入的主键在下次重建前会被判定为不存在
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Data
+public class BloomFilterSettings {
+    /**
+     * 预计主键数量,重建时如果实际数量更多会自动放大
+     */
+    private long expectedInsertions = 1000000L;
+    /**
+     * 期望的误判率
+     */
+    private double fpp = 0.01D;
+    /**
+     * 位数组是否使用堆外内存
+     */
+    private boolean offHeap = false;
+    /**
+     * 周期重建的间隔秒数,用于吸收删除操作,小于等于0表示不重建
+     */
+    private long rebuildIntervalSeconds = 0L;
+}
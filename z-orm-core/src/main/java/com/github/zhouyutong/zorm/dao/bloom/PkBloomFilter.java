@@ -0,0 +1,148 @@
+package com.github.zhouyutong.zorm.dao.bloom;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 主键的布隆过滤器
+ * 主键统一按toString()后的字符串计算hash,所以Integer/Long/String类型的同值主键互相匹配
+ * 位数组可以放在堆内(AtomicLongArray)或堆外(direct ByteBuffer)
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public final class PkBloomFilter {
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final BitArray bits;
+    private final long bitSize;
+    private final int numHashFunctions;
+
+    public PkBloomFilter(long expectedInsertions, double fpp, boolean offHeap) {
+        Preconditions.checkArgument(expectedInsertions > 0, "Param expectedInsertions must be > 0");
+        Preconditions.checkArgument(fpp > 0.0D && fpp < 1.0D, "Param fpp must be in (0, 1)");
+
+        //m = -n*ln(p)/(ln2)^2, k = m/n*ln2
+        long m = (long) (-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        m = Math.max(Long.SIZE, (m + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+        this.bits = offHeap ? new OffHeapBitArray(m) : new HeapBitArray(m);
+        this.bitSize = bits.bitSize();
+        this.numHashFunctions = Math.max(1, (int) Math.round((double) m / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(Serializable id) {
+        long[] hashes = hash(id);
+        long combinedHash = hashes[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            bits.set((combinedHash & Long.MAX_VALUE) % bitSize);
+            combinedHash += hashes[1];
+        }
+    }
+
+    /**
+     * @return - false表示一定不存在,true表示可能存在
+     */
+    public boolean mightContain(Serializable id) {
+        long[] hashes = hash(id);
+        long combinedHash = hashes[0];
+        for (int i = 0; i < numHashFunctions; i++) {
+            if (!bits.get((combinedHash & Long.MAX_VALUE) % bitSize)) {
+                return false;
+            }
+            combinedHash += hashes[1];
+        }
+        return true;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    private static long[] hash(Serializable id) {
+        HashCode hashCode = HASH_FUNCTION.hashUnencodedChars(id.toString());
+        byte[] bytes = hashCode.asBytes();
+        long h1 = ByteBuffer.wrap(bytes, 0, 8).getLong();
+        long h2 = ByteBuffer.wrap(bytes, 8, 8).getLong();
+        return new long[]{h1, h2};
+    }
+
+    private interface BitArray {
+        void set(long index);
+
+        boolean get(long index);
+
+        long bitSize();
+    }
+
+    private static final class HeapBitArray implements BitArray {
+        private final AtomicLongArray data;
+
+        HeapBitArray(long bits) {
+            Preconditions.checkArgument(bits / Long.SIZE <= Integer.MAX_VALUE, "bloom filter too large for heap storage");
+            this.data = new AtomicLongArray((int) (bits / Long.SIZE));
+        }
+
+        @Override
+        public void set(long index) {
+            int i = (int) (index >>> 6);
+            long mask = 1L << index;
+            long old;
+            do {
+                old = data.get(i);
+                if ((old & mask) != 0) {
+                    return;
+                }
+            } while (!data.compareAndSet(i, old, old | mask));
+        }
+
+        @Override
+        public boolean get(long index) {
+            return (data.get((int) (index >>> 6)) & (1L << index)) != 0;
+        }
+
+        @Override
+        public long bitSize() {
+            return (long) data.length() * Long.SIZE;
+        }
+    }
+
+    /**
+     * 堆外位数组,写操作加锁,读操作无锁
+     * 读到尚未写完的位只会使刚插入的主键短暂的被判定为不存在,等价于读发生在插入之前
+     */
+    private static final class OffHeapBitArray implements BitArray {
+        private final ByteBuffer data;
+
+        OffHeapBitArray(long bits) {
+            Preconditions.checkArgument(bits / Byte.SIZE <= Integer.MAX_VALUE, "bloom filter too large for off-heap storage");
+            this.data = ByteBuffer.allocateDirect((int) (bits / Byte.SIZE));
+        }
+
+        @Override
+        public synchronized void set(long index) {
+            int i = (int) (index >>> 3);
+            data.put(i, (byte) (data.get(i) | (1 << (index & 7))));
+        }
+
+        @Override
+        public boolean get(long index) {
+            return (data.get((int) (index >>> 3)) & (1 << (index & 7))) != 0;
+        }
+
+        @Override
+        public long bitSize() {
+            return (long) data.capacity() * Byte.SIZE;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.zhouyutong.zorm.dao.bloom;
+
+import com.github.zhouyutong.zorm.dao.DaoExecutors;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 一个entity的主键否定查找索引
+ * 通过全量扫描主键构建布隆过滤器,insert时同步写入,定期重建以吸收删除
+ * 过滤器尚未构建成功时所有主键都判定为可能存在,不影响正确性
+ * 只有当前dao实例是表的唯一写入方时才能保证不漏判,其他进程或手写sql插入的主键在下次重建前会被判定为不存在
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+@Slf4j
+public final class PkBloomIndex {
+
+    /**
+     * 流式扫描全部主键,必须读取主库,从库延迟会漏掉刚插入的主键
+     */
+    public interface PkScanner {
+        void scan(Consumer<Serializable> consumer);
+    }
+
+    private final String name;
+    private final BloomFilterSettings settings;
+    private final PkScanner scanner;
+    //当前生效的过滤器
+    private volatile PkBloomFilter current;
+    //正在重建中的过滤器,重建期间insert需要同时写入
+    private volatile PkBloomFilter building;
+    private volatile long lastScanCount;
+    //put持有读锁,设置building和切换current持有写锁,保证切换前后的put都会进入新的过滤器
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    //正在进行的不经过put的写入(如自增主键的bulkInsert),期间不做否定判断
+    private final AtomicInteger untrackedWrites = new AtomicInteger();
+    //已结束的不经过put的写入次数,和coveredVersion不一致时说明当前过滤器没有包含这些写入
+    private final AtomicLong untrackedVersion = new AtomicLong();
+    private volatile long coveredVersion;
+    //有待执行的重建请求
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    //工作线程中的重建任务还没有结束
+    private final AtomicBoolean rebuildRunning = new AtomicBoolean();
+
+    public PkBloomIndex(String name, BloomFilterSettings settings, PkScanner scanner) {
+        this.name = name;
+        this.settings = settings;
+        this.scanner = scanner;
+    }
+
+    /**
+     * 在工作线程中构建第一个过滤器并按设置开启周期重建,不阻塞dao的初始化,构建完成前所有主键都判定为可能存在
+     * 定时任务线程只负责把重建提交到工作线程,扫描主键不能占用定时任务线程
+     */
+    public void start() {
+        this.submitRebuild();
+        long interval = settings.getRebuildIntervalSeconds();
+        if (interval > 0) {
+            DaoExecutors.scheduler().scheduleWithFixedDelay(this::submitRebuild, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 在工作线程中重建,正在重建时只标记需要再重建一次,保证提交之后一定会开始一次新的重建
+     */
+    public void submitRebuild() {
+        rebuildRequested.set(true);
+        if (!rebuildRunning.compareAndSet(false, true)) {
+            return;
+        }
+        DaoExecutors.worker().execute(() -> {
+            try {
+                while (rebuildRequested.getAndSet(false)) {
+                    rebuild();
+                }
+            } finally {
+                rebuildRunning.set(false);
+            }
+            //退出循环后到清除running标记前提交的请求
+            if (rebuildRequested.get()) {
+                submitRebuild();
+            }
+        });
+    }
+
+    public boolean mightContain(Serializable id) {
+        if (untrackedWrites.get() > 0 || coveredVersion != untrackedVersion.get()) {
+            return true;
+        }
+        PkBloomFilter filter = current;
+        return filter == null || filter.mightContain(id);
+    }
+
+    public void put(Serializable id) {
+        if (id == null) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            PkBloomFilter filter = current;
+            if (filter != null) {
+                filter.put(id);
+            }
+            PkBloomFilter rebuilding = building;
+            if (rebuilding != null) {
+                rebuilding.put(id);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 开始一次无法逐个put主键的写入,结束前所有主键都判定为可能存在
+     */
+    public void beginUntrackedWrite() {
+        untrackedWrites.incrementAndGet();
+    }
+
+    /**
+     * 结束无法逐个put主键的写入,之后开始的重建成功前所有主键仍判定为可能存在
+     */
+    public void endUntrackedWrite() {
+        untrackedVersion.incrementAndGet();
+        untrackedWrites.decrementAndGet();
+    }
+
+    /**
+     * 全量扫描主键重建过滤器,失败时保留旧的过滤器
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        long expected = Math.max(settings.getExpectedInsertions(), (long) (lastScanCount * 1.2D));
+        final PkBloomFilter filter = new PkBloomFilter(expected, settings.getFpp(), settings.isOffHeap());
+        final AtomicLong count = new AtomicLong();
+        //先读版本再检查进行中的写入,扫描开始前已结束的写入才算被本次扫描覆盖
+        long version = untrackedVersion.get();
+        boolean covering = untrackedWrites.get() == 0;
+        setBuilding(filter);
+        try {
+            scanner.scan(id -> {
+                if (id != null) {
+                    filter.put(id);
+                    count.incrementAndGet();
+                }
+            });
+            swapLock.writeLock().lock();
+            try {
+                current = filter;
+                building = null;
+                if (covering) {
+                    coveredVersion = version;
+                }
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            lastScanCount = count.get();
+            log.info("rebuild pk bloom filter[" + name + "] success, keys:" + count.get() + ", bits:" + filter.getBitSize()
+                    + ", time:" + (System.currentTimeMillis() - start));
+        } catch (RuntimeException e) {
+            log.error("rebuild pk bloom filter[" + name + "] failed, keep the old one", e);
+            setBuilding(null);
+        }
+    }
+
+    private void setBuilding(PkBloomFilter filter) {
+        swapLock.writeLock().lock();
+        try {
+            building = filter;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+}
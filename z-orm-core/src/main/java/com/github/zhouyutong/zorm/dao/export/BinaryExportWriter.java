@@ -0,0 +1,96 @@
+package com.github.zhouyutong.zorm.dao.export;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 紧凑的二进制行格式,整数均为big-endian
+ * 头部: "ZORM" 1字节版本号 int列数 每列[int长度 UTF-8列名]
+ * 每行: 1字节标记1 每列[1字节类型 值]
+ * 结束: 1字节标记0
+ * 类型: 0 null,1 long,2 double,3 字符串[int长度 UTF-8],4 字节数组[int长度 字节],5 布尔[1字节],6 日期[long毫秒],7 高精度数字[同字符串]
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+final class BinaryExportWriter extends ExportWriter {
+    private static final byte[] MAGIC = {'Z', 'O', 'R', 'M'};
+    private static final int VERSION = 1;
+    private static final int ROW = 1;
+    private static final int END = 0;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_LONG = 1;
+    private static final int TYPE_DOUBLE = 2;
+    private static final int TYPE_STRING = 3;
+    private static final int TYPE_BYTES = 4;
+    private static final int TYPE_BOOLEAN = 5;
+    private static final int TYPE_DATE = 6;
+    private static final int TYPE_DECIMAL = 7;
+
+    BinaryExportWriter(OutputStream outputStream, List<String> columns) {
+        super(outputStream, columns);
+    }
+
+    @Override
+    public void writeHeader() {
+        putBytes(MAGIC);
+        putByte(VERSION);
+        putInt(columns.size());
+        for (String column : columns) {
+            putString(column);
+        }
+    }
+
+    @Override
+    public void writeRow(Object[] values) {
+        putByte(ROW);
+        for (Object value : values) {
+            writeValue(value);
+        }
+    }
+
+    @Override
+    public void finish() {
+        putByte(END);
+        super.finish();
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            putByte(TYPE_NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            putByte(TYPE_LONG);
+            putLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            putByte(TYPE_DOUBLE);
+            putDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            putByte(TYPE_DECIMAL);
+            putString(textOf(value));
+        } else if (value instanceof byte[]) {
+            putByte(TYPE_BYTES);
+            putInt(((byte[]) value).length);
+            putBytes((byte[]) value);
+        } else if (value instanceof Boolean) {
+            putByte(TYPE_BOOLEAN);
+            putByte((Boolean) value ? 1 : 0);
+        } else if (value instanceof Date) {
+            putByte(TYPE_DATE);
+            putLong(((Date) value).getTime());
+        } else {
+            putByte(TYPE_STRING);
+            putString(value.toString());
+        }
+    }
+
+    private void putString(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        putBytes(bytes);
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.zhouyutong.zorm.dao.export;
+
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * RFC 4180格式,null为空字段,包含逗号、引号或换行的值用双引号包围
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+final class CsvExportWriter extends ExportWriter {
+    private final StringBuilder line = new StringBuilder(256);
+
+    CsvExportWriter(OutputStream outputStream, List<String> columns) {
+        super(outputStream, columns);
+    }
+
+    @Override
+    public void writeHeader() {
+        writeLine(columns.toArray());
+    }
+
+    @Override
+    public void writeRow(Object[] values) {
+        writeLine(values);
+    }
+
+    private void writeLine(Object[] values) {
+        line.setLength(0);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            if (values[i] != null) {
+                appendField(textOf(values[i]));
+            }
+        }
+        line.append("\r\n");
+        putText(line);
+    }
+
+    private void appendField(String text) {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            line.append(text);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.zhouyutong.zorm.dao.export;
+
+/**
+ * dao导出的数据格式
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public enum ExportFormat {
+    /**
+     * 第一行为属性名,RFC 4180转义
+     */
+    CSV,
+    /**
+     * 每行一个json对象,key为属性名
+     */
+    JSON_LINES,
+    /**
+     * 紧凑的二进制行格式,见BinaryExportWriter
+     */
+    BINARY
+}
@@ -0,0 +1,170 @@
+package com.github.zhouyutong.zorm.dao.export;
+
+import com.github.zhouyutong.zorm.exception.DaoException;
+import com.github.zhouyutong.zorm.exception.DaoMethodParameterException;
+import org.apache.commons.lang3.time.FastDateFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 按行导出查询结果,数据先写入固定大小的缓冲区,写满后通过channel整块写出,不持有已写出的行
+ * 用法:of创建 -> writeHeader -> 逐行writeRow -> finish,finish只刷出数据不关闭outputStream
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public abstract class ExportWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    static final FastDateFormat DATE_FORMAT = FastDateFormat.getInstance("yyyy-MM-dd HH:mm:ss.SSS");
+
+    protected final List<String> columns;
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    protected ExportWriter(OutputStream outputStream, List<String> columns) {
+        this.channel = Channels.newChannel(outputStream);
+        this.columns = columns;
+    }
+
+    /**
+     * @param format       - 导出格式
+     * @param outputStream - 导出目标,由调用方关闭
+     * @param columns      - 列名,writeRow的值按此顺序
+     */
+    public static ExportWriter of(ExportFormat format, OutputStream outputStream, List<String> columns) {
+        if (format == null) {
+            throw new DaoMethodParameterException("Param format must be not null");
+        }
+        if (outputStream == null) {
+            throw new DaoMethodParameterException("Param outputStream must be not null");
+        }
+        switch (format) {
+            case CSV:
+                return new CsvExportWriter(outputStream, columns);
+            case JSON_LINES:
+                return new JsonLinesExportWriter(outputStream, columns);
+            case BINARY:
+                return new BinaryExportWriter(outputStream, columns);
+            default:
+                throw new DaoMethodParameterException("不支持的导出格式[" + format + "]");
+        }
+    }
+
+    public abstract void writeHeader();
+
+    /**
+     * @param values - 和columns一一对应的值,调用后可以复用
+     */
+    public abstract void writeRow(Object[] values);
+
+    /**
+     * 写出结束标记并刷出缓冲区
+     */
+    public void finish() {
+        drain();
+    }
+
+    /**
+     * 文本格式中值的字符串形式,null由各格式自行处理
+     */
+    static String textOf(Object value) {
+        if (value instanceof java.sql.Date || value instanceof java.sql.Time) {
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            return DATE_FORMAT.format((Date) value);
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) value);
+        }
+        return value.toString();
+    }
+
+    protected void putByte(int b) {
+        ensure(1);
+        buffer.put((byte) b);
+    }
+
+    protected void putInt(int v) {
+        ensure(4);
+        buffer.putInt(v);
+    }
+
+    protected void putLong(long v) {
+        ensure(8);
+        buffer.putLong(v);
+    }
+
+    protected void putDouble(double v) {
+        ensure(8);
+        buffer.putDouble(v);
+    }
+
+    protected void putBytes(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    /**
+     * UTF-8编码直接写入缓冲区,不生成中间的byte[]
+     */
+    protected void putText(CharSequence text) {
+        CharBuffer in = CharBuffer.wrap(text);
+        encoder.reset();
+        CoderResult result;
+        do {
+            result = encoder.encode(in, buffer, true);
+            if (result.isOverflow()) {
+                drain();
+            }
+        } while (result.isOverflow());
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+    }
+
+    private void ensure(int size) {
+        if (buffer.remaining() < size) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new DaoException("导出数据写出失败", e);
+        } finally {
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.zhouyutong.zorm.dao.export;
+
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * 每行一个json对象,数字和布尔值原样输出,日期为格式化后的字符串,byte[]为base64字符串
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+final class JsonLinesExportWriter extends ExportWriter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder line = new StringBuilder(256);
+    //属性名转义后的 "name": 前缀,每行复用
+    private final String[] keyPrefixes;
+
+    JsonLinesExportWriter(OutputStream outputStream, List<String> columns) {
+        super(outputStream, columns);
+        this.keyPrefixes = new String[columns.size()];
+        for (int i = 0; i < keyPrefixes.length; i++) {
+            line.setLength(0);
+            appendString(columns.get(i));
+            keyPrefixes[i] = line.append(':').toString();
+        }
+    }
+
+    /**
+     * 属性名已包含在每行中,没有单独的表头
+     */
+    @Override
+    public void writeHeader() {
+    }
+
+    @Override
+    public void writeRow(Object[] values) {
+        line.setLength(0);
+        line.append('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(keyPrefixes[i]);
+            Object value = values[i];
+            if (value == null) {
+                line.append("null");
+            } else if (value instanceof Boolean || isFiniteNumber(value)) {
+                line.append(textOf(value));
+            } else {
+                appendString(textOf(value));
+            }
+        }
+        line.append("}\n");
+        putText(line);
+    }
+
+    private static boolean isFiniteNumber(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            return !Double.isNaN(d) && !Double.isInfinite(d);
+        }
+        return value instanceof Number;
+    }
+
+    private void appendString(String text) {
+        line.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+}
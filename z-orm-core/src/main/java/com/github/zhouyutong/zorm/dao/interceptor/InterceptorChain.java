@@ -18,6 +18,12 @@ public class InterceptorChain {
     private Set<Interceptor> interceptors = Sets.newLinkedHashSet();
     private final Lock locker = new ReentrantLock();
 
+    /**
+     * 依次注册所有拦截器,使用Plugin.wrap的拦截器最终合并成一个代理对象
+     *
+     * @param target
+     * @return
+     */
     public Object pluginAll(Object target) {
         for (Interceptor interceptor : interceptors) {
             target = interceptor.plugin(target);
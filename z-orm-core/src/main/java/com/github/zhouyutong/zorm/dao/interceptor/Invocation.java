@@ -5,6 +5,7 @@ import java.lang.reflect.Method;
 
 /**
  * 定义了dao操作过程中的一次调用
+ * 同一次调用的所有拦截器共用一个Invocation,proceed依次执行下一个拦截器,最后执行真正的dao方法
  *
  * @Author zhouyutong
  * @Date 2016/10/21
@@ -16,6 +17,10 @@ public class Invocation {
     private Method method;
     //某个dao的方法的参数
     private Object[] args;
+    //预先计算好的调用链,为null时直接反射调用method
+    private Plugin.MethodChain methodChain;
+    //下一个要执行的拦截器下标
+    private int position;
 
     public Invocation(Object target, Method method, Object[] args) {
         this.target = target;
@@ -23,6 +28,11 @@ public class Invocation {
         this.args = args;
     }
 
+    Invocation(Object target, Plugin.MethodChain methodChain, Object[] args) {
+        this(target, methodChain.method, args);
+        this.methodChain = methodChain;
+    }
+
     public Object getTarget() {
         return target;
     }
@@ -35,8 +45,23 @@ public class Invocation {
         return args;
     }
 
-    //执行真正的dao方法
+    //执行下一个拦截器或真正的dao方法,异常统一包装成InvocationTargetException
     public Object proceed() throws InvocationTargetException, IllegalAccessException {
-        return method.invoke(target, args);
+        if (methodChain == null) {
+            return method.invoke(target, args);
+        }
+
+        int current = position;
+        try {
+            if (current < methodChain.interceptors.length) {
+                position = current + 1;
+                return methodChain.interceptors[current].intercept(this);
+            }
+            return (Object) methodChain.handle.invokeExact(args);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(Plugin.unwrap(e));
+        } finally {
+            position = current; //允许拦截器多次proceed(如重试)
+        }
     }
 }
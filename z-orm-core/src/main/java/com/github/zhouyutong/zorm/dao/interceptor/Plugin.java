@@ -2,15 +2,23 @@ package com.github.zhouyutong.zorm.dao.interceptor;
 
 
 import com.github.zhouyutong.zorm.exception.DaoException;
+import com.google.common.collect.Lists;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * 基于动态代理实现的dao代理对象
+ * 多个拦截器对同一个target调用wrap时合并成一个代理,不再一层拦截器套一层代理
+ * 每个方法要执行的拦截器在wrap时就计算好,没有拦截器的方法直接通过MethodHandle调用target
  *
  * @Author zhouyutong
  * @Date 2016/10/21
@@ -18,43 +26,67 @@ import java.util.Set;
 public class Plugin implements InvocationHandler {
 
     private Object target;
-    private Interceptor interceptor;
-    private Map<Class<?>, Set<Method>> signatureMap;
+    //按执行顺序排列,先执行的在前
+    private List<Interceptor> interceptors;
+    private Map<Method, MethodChain> methodChainMap;
 
-    private Plugin(Object target, Interceptor interceptor, Map<Class<?>, Set<Method>> signatureMap) {
+    private Plugin(Object target, List<Interceptor> interceptors, Map<Method, MethodChain> methodChainMap) {
         this.target = target;
-        this.interceptor = interceptor;
-        this.signatureMap = signatureMap;
+        this.interceptors = interceptors;
+        this.methodChainMap = methodChainMap;
     }
 
     public static Object wrap(Object target, Interceptor interceptor) {
-        Map<Class<?>, Set<Method>> signatureMap = getSignatureMap(interceptor);
+        //target已经是Plugin代理则合并,后wrap的拦截器先执行,与多层代理时的顺序一致
+        List<Interceptor> interceptors = Lists.newArrayList(interceptor);
+        if (Proxy.isProxyClass(target.getClass()) && Proxy.getInvocationHandler(target) instanceof Plugin) {
+            Plugin plugin = (Plugin) Proxy.getInvocationHandler(target);
+            interceptors.addAll(plugin.interceptors);
+            target = plugin.target;
+        }
+
+        List<Map<Class<?>, Set<Method>>> signatureMaps = Lists.newArrayListWithCapacity(interceptors.size());
+        for (Interceptor i : interceptors) {
+            signatureMaps.add(getSignatureMap(i));
+        }
         Class<?> type = target.getClass();
-        Class<?>[] interfaces = getAllInterfaces(type, signatureMap);
+        Class<?>[] interfaces = getAllInterfaces(type, signatureMaps);
         if (interfaces.length > 0) {
             return Proxy.newProxyInstance(
                     type.getClassLoader(),
                     interfaces,
-                    new Plugin(target, interceptor, signatureMap));
+                    new Plugin(target, interceptors, getMethodChainMap(target, interfaces, interceptors, signatureMaps)));
         }
         return target;
     }
 
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        try {
-            Set<Method> methods = signatureMap.get(method.getDeclaringClass());
-            if (methods != null && methods.contains(method)) {
-                return interceptor.intercept(new Invocation(target, method, args));
+        MethodChain methodChain = methodChainMap.get(method);
+        if (methodChain == null) {  //Object的方法
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
             }
-            return method.invoke(target, args);
+        }
+        if (methodChain.interceptors.length == 0) {
+            return (Object) methodChain.handle.invokeExact(args);
+        }
+
+        try {
+            return new Invocation(target, methodChain, args).proceed();
         } catch (Exception e) {
-            if (e instanceof InvocationTargetException) {
-                throw ((InvocationTargetException) e).getTargetException();
-            } else if (e instanceof UndeclaredThrowableException) {
-                throw ((UndeclaredThrowableException) e).getUndeclaredThrowable();
-            } else {
-                throw e;
-            }
+            throw unwrap(e);
+        }
+    }
+
+    static Throwable unwrap(Throwable e) {
+        if (e instanceof InvocationTargetException) {
+            return ((InvocationTargetException) e).getTargetException();
+        } else if (e instanceof UndeclaredThrowableException) {
+            return ((UndeclaredThrowableException) e).getUndeclaredThrowable();
+        } else {
+            return e;
         }
     }
 
@@ -81,16 +113,69 @@ public class Plugin implements InvocationHandler {
         return signatureMap;
     }
 
-    private static Class<?>[] getAllInterfaces(Class<?> type, Map<Class<?>, Set<Method>> signatureMap) {
-        Set<Class<?>> interfaces = new HashSet<Class<?>>();
+    private static Class<?>[] getAllInterfaces(Class<?> type, List<Map<Class<?>, Set<Method>>> signatureMaps) {
+        Set<Class<?>> interfaces = new LinkedHashSet<Class<?>>();
         while (type != null) {
             for (Class<?> c : type.getInterfaces()) {
-                if (signatureMap.containsKey(c)) {
-                    interfaces.add(c);
+                for (Map<Class<?>, Set<Method>> signatureMap : signatureMaps) {
+                    if (signatureMap.containsKey(c)) {
+                        interfaces.add(c);
+                    }
                 }
             }
             type = type.getSuperclass();
         }
         return interfaces.toArray(new Class<?>[interfaces.size()]);
     }
+
+    /**
+     * 为代理接口的每个方法预先计算拦截器数组和直接调用target的MethodHandle
+     */
+    private static Map<Method, MethodChain> getMethodChainMap(Object target, Class<?>[] interfaces, List<Interceptor> interceptors,
+                                                              List<Map<Class<?>, Set<Method>>> signatureMaps) {
+        Map<Method, MethodChain> methodChainMap = new HashMap<Method, MethodChain>();
+        for (Class<?> c : interfaces) {
+            for (Method method : c.getMethods()) {
+                List<Interceptor> methodInterceptors = Lists.newArrayList();
+                for (int i = 0; i < interceptors.size(); i++) {
+                    Set<Method> methods = signatureMaps.get(i).get(method.getDeclaringClass());
+                    if (methods != null && methods.contains(method)) {
+                        methodInterceptors.add(interceptors.get(i));
+                    }
+                }
+                methodChainMap.put(method, new MethodChain(method, directHandle(target, method),
+                        methodInterceptors.toArray(new Interceptor[methodInterceptors.size()])));
+            }
+        }
+        return methodChainMap;
+    }
+
+    /**
+     * 绑定target的MethodHandle,统一成(Object[])Object的形式以便invokeExact
+     */
+    private static MethodHandle directHandle(Object target, Method method) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method)
+                    .bindTo(target)
+                    .asSpreader(Object[].class, method.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new DaoException("Could not access method " + method + " of " + target.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * 代理接口中一个方法预先计算好的调用链
+     */
+    static final class MethodChain {
+        final Method method;
+        final MethodHandle handle;
+        final Interceptor[] interceptors;
+
+        MethodChain(Method method, MethodHandle handle, Interceptor[] interceptors) {
+            this.method = method;
+            this.handle = handle;
+            this.interceptors = interceptors;
+        }
+    }
 }
@@ -0,0 +1,21 @@
+package com.github.zhouyutong.zorm.dao.metrics;
+
+/**
+ * dao指标的SPI,通过JdbcSettings/ElasticSearchSettings的daoMetrics属性配置
+ * dao启动时为每个操作获取一次DaoOperationMetrics,运行中直接使用,不再查找
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public interface DaoMetrics {
+
+    /**
+     * 获取某个dao某个操作的指标记录器,只在dao启动时调用
+     *
+     * @param daoClass    - dao类
+     * @param entityClass - entity类
+     * @param operation   - 操作
+     * @return - 不能返回null
+     */
+    DaoOperationMetrics operationMetrics(Class<?> daoClass, Class<?> entityClass, DaoOperation operation);
+}
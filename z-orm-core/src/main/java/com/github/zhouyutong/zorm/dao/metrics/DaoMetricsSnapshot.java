@@ -0,0 +1,48 @@
+package com.github.zhouyutong.zorm.dao.metrics;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+
+/**
+ * 一个dao的一个操作的指标快照,耗时单位均为纳秒
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Getter
+@ToString
+public final class DaoMetricsSnapshot {
+    private final String daoClassName;
+    private final String entityClassName;
+    private final String methodName;
+    //调用次数,包含失败的调用
+    private final long count;
+    private final long errorCount;
+    private final long rows;
+    private final double meanNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+    private final Map<String, Long> errorCountByType;
+    private final Map<String, Long> countByDataSource;
+
+    DaoMetricsSnapshot(String daoClassName, String entityClassName, String methodName, LatencyHistogram.Snapshot latency,
+                       long rows, long errorCount, Map<String, Long> errorCountByType, Map<String, Long> countByDataSource) {
+        this.daoClassName = daoClassName;
+        this.entityClassName = entityClassName;
+        this.methodName = methodName;
+        this.count = latency.getCount();
+        this.errorCount = errorCount;
+        this.rows = rows;
+        this.meanNanos = latency.getMean();
+        this.p50Nanos = latency.getValueAtPercentile(50.0D);
+        this.p99Nanos = latency.getValueAtPercentile(99.0D);
+        this.p999Nanos = latency.getValueAtPercentile(99.9D);
+        this.maxNanos = latency.getMax();
+        this.errorCountByType = errorCountByType;
+        this.countByDataSource = countByDataSource;
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.zhouyutong.zorm.dao.metrics;
+
+/**
+ * 被统计的dao操作
+ * 只统计真正访问数据源的方法,其余便捷方法(如findOne、findList)委托到这些方法上统计
+ * jdbc的findPage委托到findListByQuery和countByCriteria上统计,FIND_PAGE只有es使用
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public enum DaoOperation {
+    COUNT_BY_CRITERIA("countByCriteria"),
+    COUNT_ALL("countAll"),
+    COUNT_BY_SQL("countBySql"),
+    FIND_ONE_BY_ID("findOneById"),
+    FIND_ONE_BY_QUERY("findOneByQuery"),
+    FIND_ONE_BY_SQL("findOneBySql"),
+    FIND_MAP_BY_IDS("findMapByIds"),
+    FIND_LIST_BY_QUERY("findListByQuery"),
+    FIND_PAGE("findPage"),
+    READ_STREAM("readStream"),
+    EXPORT("export"),
+    FIND_LIST_BY_SQL("findListBySql"),
+    AGGREGATE("aggregate"),
+    INSERT("insert"),
+    UPSERT("upsert"),
+    BULK_INSERT("bulkInsert"),
+    UPDATE_BY_ID("updateById"),
+    UPDATE_BY_CRITERIA("updateByCriteria"),
+    UPDATE_BY_SQL("updateBySql"),
+    DELETE_BY_ID("deleteById"),
+    DELETE_BY_IDS("deleteByIds"),
+    DELETE_BY_CRITERIA("deleteByCriteria");
+
+    private final String methodName;
+
+    DaoOperation(String methodName) {
+        this.methodName = methodName;
+    }
+
+    public String methodName() {
+        return this.methodName;
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.zhouyutong.zorm.dao.metrics;
+
+/**
+ * 一个dao的一个操作的指标记录器
+ * 每次dao调用都会调用,实现不能分配对象,不能阻塞
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public interface DaoOperationMetrics {
+
+    /**
+     * 记录一次成功的调用
+     *
+     * @param latencyNanos - 耗时,纳秒
+     * @param rows         - 返回或影响的行数(文档数)
+     * @param dataSource   - 执行调用的数据源,可能为null
+     */
+    void record(long latencyNanos, long rows, String dataSource);
+
+    /**
+     * 记录一次失败的调用
+     *
+     * @param latencyNanos - 耗时,纳秒
+     * @param error        - 原始异常(未经DaoExceptionTranslator转换)
+     * @param dataSource   - 执行调用的数据源,可能为null
+     */
+    void recordError(long latencyNanos, Throwable error, String dataSource);
+}
@@ -0,0 +1,93 @@
+package com.github.zhouyutong.zorm.dao.metrics;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内的dao指标注册表,可随时snapshot
+ * 按dao类、entity类、方法区分,同一个实例可以配置给多个settings共用
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public class InMemoryDaoMetrics implements DaoMetrics {
+    private static final String UNKNOWN_DATA_SOURCE = "unknown";
+
+    private final ConcurrentHashMap<String, Recorder> recorderMap = new ConcurrentHashMap<String, Recorder>();
+
+    @Override
+    public DaoOperationMetrics operationMetrics(Class<?> daoClass, Class<?> entityClass, DaoOperation operation) {
+        String key = daoClass.getName() + "#" + operation.methodName();
+        return recorderMap.computeIfAbsent(key, k -> new Recorder(daoClass.getName(), entityClass.getName(), operation));
+    }
+
+    /**
+     * 所有操作的指标快照,没有调用过的操作也包含在内
+     */
+    public List<DaoMetricsSnapshot> snapshot() {
+        List<DaoMetricsSnapshot> snapshotList = Lists.newArrayListWithCapacity(recorderMap.size());
+        for (Recorder recorder : recorderMap.values()) {
+            snapshotList.add(recorder.snapshot());
+        }
+        return snapshotList;
+    }
+
+    private static final class Recorder implements DaoOperationMetrics {
+        private final String daoClassName;
+        private final String entityClassName;
+        private final DaoOperation operation;
+        private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errorCount = new LongAdder();
+        private final ConcurrentHashMap<Class<?>, LongAdder> errorCountByType = new ConcurrentHashMap<Class<?>, LongAdder>();
+        private final ConcurrentHashMap<String, LongAdder> countByDataSource = new ConcurrentHashMap<String, LongAdder>();
+
+        Recorder(String daoClassName, String entityClassName, DaoOperation operation) {
+            this.daoClassName = daoClassName;
+            this.entityClassName = entityClassName;
+            this.operation = operation;
+        }
+
+        @Override
+        public void record(long latencyNanos, long rows, String dataSource) {
+            latencyHistogram.record(latencyNanos);
+            this.rows.add(rows);
+            counter(countByDataSource, dataSource == null ? UNKNOWN_DATA_SOURCE : dataSource).increment();
+        }
+
+        @Override
+        public void recordError(long latencyNanos, Throwable error, String dataSource) {
+            latencyHistogram.record(latencyNanos);
+            errorCount.increment();
+            counter(errorCountByType, error.getClass()).increment();
+            counter(countByDataSource, dataSource == null ? UNKNOWN_DATA_SOURCE : dataSource).increment();
+        }
+
+        /**
+         * 先get,key已存在时不会进入computeIfAbsent的加锁路径
+         */
+        private static <K> LongAdder counter(ConcurrentHashMap<K, LongAdder> counterMap, K key) {
+            LongAdder counter = counterMap.get(key);
+            return counter != null ? counter : counterMap.computeIfAbsent(key, k -> new LongAdder());
+        }
+
+        DaoMetricsSnapshot snapshot() {
+            Map<String, Long> errorsByType = Maps.newHashMap();
+            for (Map.Entry<Class<?>, LongAdder> entry : errorCountByType.entrySet()) {
+                errorsByType.put(entry.getKey().getName(), entry.getValue().sum());
+            }
+            Map<String, Long> callsByDataSource = Maps.newHashMap();
+            for (Map.Entry<String, LongAdder> entry : countByDataSource.entrySet()) {
+                callsByDataSource.put(entry.getKey(), entry.getValue().sum());
+            }
+            return new DaoMetricsSnapshot(daoClassName, entityClassName, operation.methodName(), latencyHistogram.snapshot(),
+                    rows.sum(), errorCount.sum(), errorsByType, callsByDataSource);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.zhouyutong.zorm.dao.metrics;
+
+/**
+ * 默认的dao指标实现,什么都不记录
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public final class NoopDaoMetrics implements DaoMetrics {
+    public static final NoopDaoMetrics INSTANCE = new NoopDaoMetrics();
+
+    private static final DaoOperationMetrics NOOP_OPERATION_METRICS = new DaoOperationMetrics() {
+        @Override
+        public void record(long latencyNanos, long rows, String dataSource) {
+        }
+
+        @Override
+        public void recordError(long latencyNanos, Throwable error, String dataSource) {
+        }
+    };
+
+    private NoopDaoMetrics() {
+    }
+
+    @Override
+    public DaoOperationMetrics operationMetrics(Class<?> daoClass, Class<?> entityClass, DaoOperation operation) {
+        return NOOP_OPERATION_METRICS;
+    }
+}
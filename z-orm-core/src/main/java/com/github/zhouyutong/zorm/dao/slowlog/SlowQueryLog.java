@@ -0,0 +1,206 @@
+package com.github.zhouyutong.zorm.dao.slowlog;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 慢查询日志
+ * 1、耗时超过thresholdMillis的操作以去掉参数值后的语句打印warn日志
+ * 2、按语句指纹维护一个固定大小的top-N表(按总耗时加权的Space-Saving算法),用于找出占用数据库时间最多的几类语句
+ * top-N表按windowSeconds滚动,查询结果覆盖最近一到两个窗口
+ * 已在表中的指纹无锁累加,只有新指纹进入表(可能淘汰旧指纹)和窗口滚动时加锁
+ * <p>
+ * 通过JdbcSettings/ElasticSearchSettings的slowQueryLog属性配置,为null表示不开启,同一个实例可以被多个settings共用
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+@Slf4j
+public class SlowQueryLog {
+    /**
+     * 慢查询阈值,毫秒
+     */
+    @Getter
+    @Setter
+    private long thresholdMillis = 1000L;
+    /**
+     * top-N表最多保留的语句指纹数量,超过后淘汰总耗时最少的指纹
+     */
+    @Getter
+    @Setter
+    private int topN = 100;
+    /**
+     * top-N表滚动的窗口长度,秒
+     */
+    @Getter
+    @Setter
+    private long windowSeconds = 600L;
+    /**
+     * 是否所有操作都计入top-N表,false时只计入慢查询
+     * 占用数据库时间最多的往往是大量的快查询,开启后每次操作都要计算语句指纹,默认只计入慢查询
+     */
+    @Getter
+    @Setter
+    private boolean aggregateAll = false;
+
+    private final Object lock = new Object();
+    private volatile Window current = new Window(System.nanoTime());
+    private volatile Window previous = new Window(System.nanoTime());
+
+    /**
+     * 本次操作是否需要记录,不需要时调用方不必计算语句指纹
+     *
+     * @param latencyNanos
+     * @return
+     */
+    public boolean accept(long latencyNanos) {
+        return aggregateAll || isSlow(latencyNanos);
+    }
+
+    /**
+     * 记录一次操作
+     *
+     * @param daoName      - dao名称
+     * @param fingerprint  - 去掉参数值后的语句
+     * @param latencyNanos - 耗时,纳秒
+     * @param rows         - 返回或影响的行数
+     */
+    public void record(String daoName, String fingerprint, long latencyNanos, long rows) {
+        if (isSlow(latencyNanos)) {
+            log.warn("slow query {}ms, rows={}, dao={}, statement={}", TimeUnit.NANOSECONDS.toMillis(latencyNanos), rows, daoName, fingerprint);
+        }
+
+        long now = System.nanoTime();
+        Window window = current;
+        if (now - window.startNanos > TimeUnit.SECONDS.toNanos(windowSeconds)) {
+            window = this.roll(window, now);
+        }
+
+        Entry entry = window.entryMap.get(fingerprint);
+        if (entry == null) {
+            entry = this.admit(window, fingerprint);
+        }
+        entry.count.increment();
+        entry.totalNanos.add(latencyNanos);
+        entry.maxNanos.accumulateAndGet(latencyNanos, Math::max);
+        entry.rows.add(rows);
+    }
+
+    /**
+     * 窗口滚动,只有一个线程执行
+     */
+    private Window roll(Window window, long now) {
+        synchronized (lock) {
+            if (current == window) {
+                previous = window;
+                current = new Window(now);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * 新指纹进入表,表满时淘汰总耗时最少的指纹,新指纹继承其总耗时作为误差上界
+     * 淘汰时正在累加到旧指纹的那次操作会丢失,top-N表本身就是近似统计
+     */
+    private Entry admit(Window window, String fingerprint) {
+        synchronized (lock) {
+            Entry entry = window.entryMap.get(fingerprint);
+            if (entry != null) {
+                return entry;
+            }
+            long errorNanos = 0L;
+            if (window.entryMap.size() >= topN) {
+                Entry min = null;
+                long minTotalNanos = Long.MAX_VALUE;
+                for (Entry e : window.entryMap.values()) {
+                    long totalNanos = e.totalNanos.sum();
+                    if (totalNanos < minTotalNanos) {
+                        min = e;
+                        minTotalNanos = totalNanos;
+                    }
+                }
+                window.entryMap.remove(min.fingerprint);
+                errorNanos = minTotalNanos;
+            }
+            entry = new Entry(fingerprint, errorNanos);
+            window.entryMap.put(fingerprint, entry);
+            return entry;
+        }
+    }
+
+    /**
+     * 最近窗口内按总耗时倒序的语句指纹统计
+     *
+     * @return
+     */
+    public List<SlowQueryStat> topStatements() {
+        Window previousWindow;
+        Window currentWindow;
+        synchronized (lock) {
+            previousWindow = previous;
+            currentWindow = current;
+        }
+        Map<String, SlowQueryStat> statMap = Maps.newHashMap();
+        for (Entry entry : previousWindow.entryMap.values()) {
+            statMap.put(entry.fingerprint, entry.toStat(null));
+        }
+        for (Entry entry : currentWindow.entryMap.values()) {
+            statMap.put(entry.fingerprint, entry.toStat(statMap.get(entry.fingerprint)));
+        }
+        List<SlowQueryStat> statList = Lists.newArrayList(statMap.values());
+        statList.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+        return statList.size() > topN ? Lists.newArrayList(statList.subList(0, topN)) : statList;
+    }
+
+    private boolean isSlow(long latencyNanos) {
+        return latencyNanos >= TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    private static final class Window {
+        private final long startNanos;
+        private final Map<String, Entry> entryMap = new ConcurrentHashMap<String, Entry>();
+
+        Window(long startNanos) {
+            this.startNanos = startNanos;
+        }
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+        private final long errorNanos;
+
+        Entry(String fingerprint, long errorNanos) {
+            this.fingerprint = fingerprint;
+            this.errorNanos = errorNanos;
+            this.totalNanos.add(errorNanos);
+        }
+
+        SlowQueryStat toStat(SlowQueryStat merged) {
+            long count = this.count.sum();
+            long totalNanos = this.totalNanos.sum();
+            long maxNanos = this.maxNanos.get();
+            long rows = this.rows.sum();
+            if (merged == null) {
+                return new SlowQueryStat(fingerprint, count, totalNanos, maxNanos, rows, errorNanos);
+            }
+            return new SlowQueryStat(fingerprint, count + merged.getCount(), totalNanos + merged.getTotalNanos(),
+                    Math.max(maxNanos, merged.getMaxNanos()), rows + merged.getRows(), errorNanos + merged.getErrorNanos());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.zhouyutong.zorm.dao.slowlog;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 一个语句指纹的统计,耗时单位均为纳秒
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Getter
+@ToString
+public final class SlowQueryStat {
+    private final String fingerprint;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long rows;
+    //指纹被淘汰后重新进入时继承的总耗时,totalNanos可能最多高估这么多
+    private final long errorNanos;
+
+    SlowQueryStat(String fingerprint, long count, long totalNanos, long maxNanos, long rows, long errorNanos) {
+        this.fingerprint = fingerprint;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.rows = rows;
+        this.errorNanos = errorNanos;
+    }
+}
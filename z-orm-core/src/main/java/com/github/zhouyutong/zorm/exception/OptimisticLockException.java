@@ -0,0 +1,16 @@
+package com.github.zhouyutong.zorm.exception;
+
+/**
+ * 乐观锁冲突异常,带版本更新时记录已被其他请求修改或已不存在
+ */
+@SuppressWarnings("serial")
+public class OptimisticLockException extends DaoException {
+
+    public OptimisticLockException(String message) {
+        super(message);
+    }
+
+    public OptimisticLockException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.zhouyutong.zorm.query;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+
+import java.util.regex.Pattern;
+
+/**
+ * 封装基本的聚合函数,通过Query.aggregate添加,dao.aggregate按行返回AggregationRow
+ * jdbc翻译为SQL聚合函数,es翻译为terms下的metric子聚合
+ * es的countDistinct使用cardinality聚合,是近似值
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @non-threadsafe 线程不安全对象，建议只用作方法内部变量使用
+ */
+public class Aggregation {
+    //别名直接用作SQL列别名和es聚合名
+    private static final Pattern ALIAS_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final Type type;
+    //聚合属性,count(*)时为null
+    private final String key;
+    //结果别名,having和orderBy中用别名引用聚合结果
+    private final String alias;
+
+    private Aggregation(Type type, String key, String alias) {
+        Preconditions.checkArgument(alias != null && ALIAS_PATTERN.matcher(alias).matches(), "Param alias was %s, It must be a valid identifier", alias);
+        this.type = type;
+        this.key = key;
+        this.alias = alias;
+    }
+
+    public static Aggregation count(String alias) {
+        return new Aggregation(Type.COUNT, null, alias);
+    }
+
+    public static Aggregation countDistinct(String key, String alias) {
+        return new Aggregation(Type.COUNT_DISTINCT, checkKey(key), alias);
+    }
+
+    public static Aggregation sum(String key, String alias) {
+        return new Aggregation(Type.SUM, checkKey(key), alias);
+    }
+
+    public static Aggregation avg(String key, String alias) {
+        return new Aggregation(Type.AVG, checkKey(key), alias);
+    }
+
+    public static Aggregation min(String key, String alias) {
+        return new Aggregation(Type.MIN, checkKey(key), alias);
+    }
+
+    public static Aggregation max(String key, String alias) {
+        return new Aggregation(Type.MAX, checkKey(key), alias);
+    }
+
+    private static String checkKey(String key) {
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(key), "Param key was %s, It must be not null or empty", key);
+        return key;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + (key == null ? "*" : key) + ") AS " + alias;
+    }
+
+    public enum Type {
+        COUNT, COUNT_DISTINCT, SUM, AVG, MIN, MAX
+    }
+}
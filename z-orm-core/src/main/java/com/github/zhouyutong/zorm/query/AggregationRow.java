@@ -0,0 +1,92 @@
+package com.github.zhouyutong.zorm.query;
+
+import com.google.common.collect.Maps;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * dao.aggregate返回的一行结果,key为group by的属性名或聚合的别名
+ * 不同数据库聚合结果的数字类型不同(如SUM返回BigDecimal),按需用getLong/getDouble/getBigDecimal转换
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@ToString
+@EqualsAndHashCode
+public class AggregationRow {
+    private final LinkedHashMap<String, Object> valueMap = Maps.newLinkedHashMap();
+
+    public AggregationRow put(String key, Object value) {
+        valueMap.put(key, value);
+        return this;
+    }
+
+    public Object get(String key) {
+        return valueMap.get(key);
+    }
+
+    public String getString(String key) {
+        Object value = valueMap.get(key);
+        return value == null ? null : value.toString();
+    }
+
+    public Long getLong(String key) {
+        Object value = valueMap.get(key);
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Number ? ((Number) value).longValue() : Long.valueOf(value.toString());
+    }
+
+    public Integer getInteger(String key) {
+        Object value = valueMap.get(key);
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Number ? ((Number) value).intValue() : Integer.valueOf(value.toString());
+    }
+
+    public Double getDouble(String key) {
+        Object value = valueMap.get(key);
+        if (value == null) {
+            return null;
+        }
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.valueOf(value.toString());
+    }
+
+    public BigDecimal getBigDecimal(String key) {
+        Object value = valueMap.get(key);
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof Number) {
+            return BigDecimal.valueOf(((Number) value).doubleValue());
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    public Map<String, Object> asMap() {
+        return Collections.unmodifiableMap(valueMap);
+    }
+
+    /**
+     * 复制一行,es多级group by展开时使用
+     */
+    public AggregationRow copy() {
+        AggregationRow row = new AggregationRow();
+        row.valueMap.putAll(this.valueMap);
+        return row;
+    }
+}
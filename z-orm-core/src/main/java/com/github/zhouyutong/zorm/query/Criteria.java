@@ -80,6 +80,61 @@ public class Criteria {
         return criteria;
     }
 
+    /**
+     * 任一条件满足即可,即 (c1) OR (c2) ...,每个条件自身的链仍然是AND
+     *
+     * @param criterias
+     * @return
+     */
+    public static Criteria anyOf(Criteria... criterias) {
+        return group(CriteriaOperators.OR, criterias);
+    }
+
+    /**
+     * 所有条件都要满足,即 (c1) AND (c2) ...,一般嵌套在anyOf/or中使用
+     *
+     * @param criterias
+     * @return
+     */
+    public static Criteria allOf(Criteria... criterias) {
+        return group(CriteriaOperators.AND, criterias);
+    }
+
+    private static Criteria group(CriteriaOperators criteriaOperators, Criteria... criterias) {
+        checkGroupCriteria(criterias);
+        Criteria criteria = new Criteria(null, criteriaOperators, Arrays.asList(criterias));
+        List<Criteria> criteriaChain = new ArrayList<Criteria>();
+        criteriaChain.add(criteria);
+        criteria.setCriteriaChain(criteriaChain);
+        return criteria;
+    }
+
+    /**
+     * 在链上追加一个OR分组,即 当前链 AND ((c1) OR (c2) ...)
+     *
+     * @param criterias
+     * @return
+     */
+    public Criteria or(Criteria... criterias) {
+        checkGroupCriteria(criterias);
+        Criteria c = new Criteria(null, CriteriaOperators.OR, Arrays.asList(criterias));
+        criteriaChain.add(c);
+        return this;
+    }
+
+    /**
+     * 在链上追加一个AND分组,即 当前链 AND ((c1) AND (c2) ...)
+     *
+     * @param criterias
+     * @return
+     */
+    public Criteria and(Criteria... criterias) {
+        checkGroupCriteria(criterias);
+        Criteria c = new Criteria(null, CriteriaOperators.AND, Arrays.asList(criterias));
+        criteriaChain.add(c);
+        return this;
+    }
+
     public Criteria lt(String key, Object value) {
         checkCompareCriteria(key, value);
         Criteria c = new Criteria(key, CriteriaOperators.LT, value);
@@ -200,6 +255,19 @@ public class Criteria {
         return value;
     }
 
+    /**
+     * 分组条件(anyOf/allOf/or/and)的子条件,非分组条件返回空列表
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public List<Criteria> getGroupCriterias() {
+        if (!CriteriaOperators.isGroupOperator(operator)) {
+            return Collections.emptyList();
+        }
+        return (List<Criteria>) value;
+    }
+
     /**
      * @return the criteriaChain
      */
@@ -244,6 +312,16 @@ public class Criteria {
         Preconditions.checkArgument(value != null, "Param value must be not null", value);
     }
 
+    /**
+     * 校验分组的条件
+     */
+    private static void checkGroupCriteria(Criteria... criterias) {
+        Preconditions.checkArgument(criterias != null && criterias.length > 0, "Number of group criterias must not be empty");
+        for (Criteria criteria : criterias) {
+            Preconditions.checkNotNull(criteria, "Group criteria must be not null");
+        }
+    }
+
     /**
      * 校验比较集合的操作参数
      */
@@ -273,7 +351,11 @@ public class Criteria {
         int size = cc.size();
         for (int i = 0; i < size; i++) {
             Criteria criteria = cc.get(i);
-            builder.append(criteria.getKey() + criteria.getOperator() + (criteria.getValue() == null ? "" : criteria.getValue()));
+            if (CriteriaOperators.isGroupOperator(criteria.getOperator())) {
+                builder.append(criteria.getOperator() + criteria.getValue());
+            } else {
+                builder.append(criteria.getKey() + criteria.getOperator() + (criteria.getValue() == null ? "" : criteria.getValue()));
+            }
             if (i < size - 1) {
                 builder.append(",");
             }
@@ -19,7 +19,10 @@ public enum CriteriaOperators {
     ISNOTNULL("IS NOT NULL", "no"),
     //以下match匹配支持ES查询
     MATCH("match", "match"),
-    MATCH_PHRASE("match_phrase", "match_phrase");
+    MATCH_PHRASE("match_phrase", "match_phrase"),
+    //条件分组,value为List<Criteria>,jdbc生成括号,es生成嵌套bool
+    OR("OR", "group"),
+    AND("AND", "group");
 
     private String operators;
     private String valueType;
@@ -75,4 +78,12 @@ public enum CriteriaOperators {
         }
         return false;
     }
+
+    public static boolean isGroupOperator(String operator) {
+        if (OR.match(operator)
+                || AND.match(operator)) {
+            return true;
+        }
+        return false;
+    }
 }
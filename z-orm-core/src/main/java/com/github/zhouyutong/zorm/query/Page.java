@@ -0,0 +1,46 @@
+package com.github.zhouyutong.zorm.query;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * dao.findPage返回的一页结果
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Getter
+@ToString
+public class Page<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 当前页的数据,没有数据时为空列表
+     */
+    private final List<T> content;
+    /**
+     * 满足条件的总数
+     */
+    private final long total;
+    private final int pageNumber;
+    private final int pageSize;
+
+    public Page(List<T> content, long total, int pageNumber, int pageSize) {
+        this.content = content == null ? Collections.<T>emptyList() : content;
+        this.total = total;
+        this.pageNumber = pageNumber;
+        this.pageSize = pageSize;
+    }
+
+    public boolean hasNext() {
+        return (long) pageNumber * pageSize < total;
+    }
+
+    public long getTotalPages() {
+        return pageSize <= 0 ? 0L : (total + pageSize - 1) / pageSize;
+    }
+}
@@ -29,13 +29,32 @@ public class Query {
      * 一次查询中GroupBy
      */
     private final List<GroupBy> groupBys = Lists.newArrayList();
+    /**
+     * 一次查询中的聚合函数,只在dao.aggregate中使用
+     */
+    private final List<Aggregation> aggregations = Lists.newArrayList();
+    /**
+     * 聚合结果的过滤条件,key为聚合别名或group by属性
+     */
+    private Criteria having;
     /**
      * 一次查询中order by
      */
     private final List<OrderBy> orderBys = Lists.newArrayList();
     private int offset;
     private int limit;
+    /**
+     * jdbc为索引名(mysql USE INDEX,oracle INDEX hint),es为search preference
+     */
     private String hint;
+    /**
+     * mysql使用FORCE INDEX而不是USE INDEX
+     */
+    private boolean forceIndex;
+    /**
+     * es的search routing
+     */
+    private String routing;
 
     private Query() {
     }
@@ -71,6 +90,18 @@ public class Query {
         return this;
     }
 
+    public Query aggregate(Aggregation... aggregationArr) {
+        for (Aggregation aggregation : aggregationArr) {
+            aggregations.add(aggregation);
+        }
+        return this;
+    }
+
+    public Query having(Criteria having) {
+        this.having = having;
+        return this;
+    }
+
     public Query includeField(String... fieldArr) {
         for (String field : fieldArr) {
             fields.add(field);
@@ -93,4 +124,16 @@ public class Query {
         this.hint = hint;
         return this;
     }
+
+    public Query forceIndex(String indexName) {
+        this.hint(indexName);
+        this.forceIndex = true;
+        return this;
+    }
+
+    public Query routing(String routing) {
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(routing), "Param routing was %s, It must be not null or empty", routing);
+        this.routing = routing;
+        return this;
+    }
 }
@@ -3,14 +3,29 @@ package com.github.zhouyutong.zorm.dao.elasticsearch;
 import com.github.zhouyutong.zorm.annotation.PK;
 import com.github.zhouyutong.zorm.constant.DBConstant;
 import com.github.zhouyutong.zorm.constant.MixedConstant;
+import com.github.zhouyutong.zorm.constant.SymbolConstant;
+import com.github.zhouyutong.zorm.dao.DaoExecutors;
 import com.github.zhouyutong.zorm.dao.DaoHelper;
+import com.github.zhouyutong.zorm.dao.DirtyTracker;
 import com.github.zhouyutong.zorm.dao.IBaseDao;
+import com.github.zhouyutong.zorm.dao.IdBatchLoader;
+import com.github.zhouyutong.zorm.dao.SingleFlight;
+import com.github.zhouyutong.zorm.dao.bloom.BloomFilterSettings;
+import com.github.zhouyutong.zorm.dao.bloom.PkBloomIndex;
+import com.github.zhouyutong.zorm.dao.export.ExportFormat;
+import com.github.zhouyutong.zorm.dao.export.ExportWriter;
+import com.github.zhouyutong.zorm.dao.metrics.DaoOperation;
+import com.github.zhouyutong.zorm.dao.metrics.DaoOperationMetrics;
+import com.github.zhouyutong.zorm.dao.slowlog.SlowQueryLog;
+import com.github.zhouyutong.zorm.dao.slowlog.SlowQueryStat;
 import com.github.zhouyutong.zorm.entity.IdEntity;
 import com.github.zhouyutong.zorm.exception.DaoException;
 import com.github.zhouyutong.zorm.exception.DaoExceptionTranslator;
 import com.github.zhouyutong.zorm.exception.DaoMethodParameterException;
 import com.github.zhouyutong.zorm.query.*;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
@@ -19,24 +34,33 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.DocWriteResponse;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
 import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.bulk.byscroll.BulkByScrollResponse;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.get.GetResponse;
 import org.elasticsearch.action.get.MultiGetItemResponse;
 import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.update.UpdateRequestBuilder;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.reindex.DeleteByQueryAction;
+import org.elasticsearch.index.reindex.DeleteByQueryRequestBuilder;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 import org.springframework.beans.BeansException;
@@ -44,6 +68,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 
 import javax.annotation.PostConstruct;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
@@ -52,6 +77,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * 基于ElasticSearch 5.3 TransportClient的Dao实现
@@ -69,6 +97,11 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
     private Class<T> entityClass;
     private boolean hasEsVersionFiled;  //含有es的version字段可使用ES的带版本更新
     private List<String> notNeedTransientPropertyList = Lists.newArrayList();   //不需要持久化的字段
+    private PkBloomIndex pkBloomIndex;  //主键布隆过滤器,为null表示未开启
+    private final SingleFlight<String, Object> readSingleFlight = new SingleFlight<String, Object>();
+    private IdBatchLoader<T> idBatchLoader;    //findOneById自动微批,为null表示未开启
+    private DirtyTracker dirtyTracker;  //脏字段检查,为null表示未开启
+    private DaoOperationMetrics[] operationMetrics;    //按DaoOperation.ordinal()下标
     private ApplicationContext applicationContext;
 
     @Override
@@ -80,6 +113,9 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
     public boolean exists(Serializable id) throws DaoException {
         DaoHelper.checkArgumentId(id);
 
+        if (pkBloomIndex != null && !pkBloomIndex.mightContain(id)) {
+            return false;
+        }
         return this.exists(Criteria.where(pkFieldName, id));
     }
 
@@ -94,6 +130,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
     public long countByCriteria(Criteria criteria) throws DaoException {
         DaoHelper.checkArgumentCriteria(criteria);
 
+        long start = System.nanoTime();
         try {
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
             QueryBuilder queryBuilder = ElasticSearchHelper.criteria2QueryBuilder(criteria);
@@ -110,15 +147,18 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
             if (log.isDebugEnabled()) {
                 log.debug("countByCriteria searchRequestBuilder:" + searchRequestBuilder.toString());
             }
-            SearchResponse searchResponse = searchRequestBuilder.get();
+            SearchResponse searchResponse = search(searchRequestBuilder);
+            recordMetrics(DaoOperation.COUNT_BY_CRITERIA, start, MixedConstant.INT_1, searchRequestBuilder);
             return searchResponse.getHits().getTotalHits();
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.COUNT_BY_CRITERIA, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
 
     @Override
     public long countAll() throws DaoException {
+        long start = System.nanoTime();
         try {
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
             SearchRequestBuilder searchRequestBuilder = client.prepareSearch()
@@ -131,9 +171,11 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
             if (log.isDebugEnabled()) {
                 log.debug("countAll searchRequestBuilder:" + searchRequestBuilder.toString());
             }
-            SearchResponse searchResponse = searchRequestBuilder.get();
+            SearchResponse searchResponse = search(searchRequestBuilder);
+            recordMetrics(DaoOperation.COUNT_ALL, start, MixedConstant.INT_1, searchRequestBuilder);
             return searchResponse.getHits().getTotalHits();
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.COUNT_ALL, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -141,6 +183,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
     @Override
     public long countBySql(String sql, LinkedHashMap<String, Object> param) throws DaoException {
         DaoHelper.checkArgument(sql);
+        long start = System.nanoTime();
         try {
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
             QueryBuilder queryBuilder = QueryBuilders.wrapperQuery(sql);
@@ -154,9 +197,11 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
             if (log.isDebugEnabled()) {
                 log.debug("countBySql searchRequestBuilder:" + searchRequestBuilder.toString());
             }
-            SearchResponse searchResponse = searchRequestBuilder.get();
+            SearchResponse searchResponse = search(searchRequestBuilder);
+            recordMetrics(DaoOperation.COUNT_BY_SQL, start, MixedConstant.INT_1, searchRequestBuilder);
             return searchResponse.getHits().getTotalHits();
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.COUNT_BY_SQL, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -165,20 +210,30 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
     public T findOneById(Serializable id) throws DaoException {
         DaoHelper.checkArgumentId(id);
 
+        if (pkBloomIndex != null && !pkBloomIndex.mightContain(id)) {
+            return null;
+        }
+        if (idBatchLoader != null) {
+            return idBatchLoader.load(id);
+        }
+        long start = System.nanoTime();
         try {
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
-            GetResponse response = client.prepareGet()
+            String idStr = ElasticSearchHelper.getIdSerializable(id);
+            GetResponse response = coalesceRead("get:" + idStr, () -> client.prepareGet()
                     .setIndex(index)
                     .setType(type)
-                    .setId(ElasticSearchHelper.getIdSerializable(id))
+                    .setId(idStr)
                     .setOperationThreaded(false)
-                    .get();
+                    .get());
+            recordMetrics(DaoOperation.FIND_ONE_BY_ID, start, response.isExists() ? MixedConstant.INT_1 : MixedConstant.INT_0, null);
             if (!response.isExists()) {
                 return null;
             }
             String source = ElasticSearchHelper.setEsVersion(response, hasEsVersionFiled);
-            return FastJson.jsonStr2Object(source, entityClass);
+            return track(FastJson.jsonStr2Object(source, entityClass));
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.FIND_ONE_BY_ID, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -187,6 +242,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
     public T findOneByQuery(Query query) throws DaoException {
         DaoHelper.checkArgumentQuery(query);
 
+        long start = System.nanoTime();
         try {
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
             QueryBuilder queryBuilder = ElasticSearchHelper.criteria2QueryBuilder(query.getCriteria());
@@ -202,12 +258,16 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
             if (queryBuilder != null) {
                 searchRequestBuilder.setQuery(queryBuilder);
             }
+            ElasticSearchHelper.setPreferenceAndRouting(searchRequestBuilder, query);
             if (log.isDebugEnabled()) {
                 log.debug("findOneByQuery searchRequestBuilder:" + searchRequestBuilder.toString());
             }
-            SearchResponse searchResponse = searchRequestBuilder.get();
-            return ElasticSearchHelper.getEntity(searchResponse, entityClass, hasEsVersionFiled);
+            SearchResponse searchResponse = search(searchRequestBuilder);
+            T entity = track(ElasticSearchHelper.getEntity(searchResponse, entityClass, hasEsVersionFiled));
+            recordMetrics(DaoOperation.FIND_ONE_BY_QUERY, start, entity == null ? MixedConstant.INT_0 : MixedConstant.INT_1, searchRequestBuilder);
+            return entity;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.FIND_ONE_BY_QUERY, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -216,6 +276,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
     public T findOneBySql(String sql, LinkedHashMap<String, Object> param) throws DaoException {
         DaoHelper.checkArgument(sql);
 
+        long start = System.nanoTime();
         try {
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
             QueryBuilder queryBuilder = QueryBuilders.wrapperQuery(sql);
@@ -229,9 +290,12 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
             if (log.isDebugEnabled()) {
                 log.debug("findOneBySql searchRequestBuilder:" + searchRequestBuilder.toString());
             }
-            SearchResponse searchResponse = searchRequestBuilder.get();
-            return ElasticSearchHelper.getEntity(searchResponse, entityClass, hasEsVersionFiled);
+            SearchResponse searchResponse = search(searchRequestBuilder);
+            T entity = track(ElasticSearchHelper.getEntity(searchResponse, entityClass, hasEsVersionFiled));
+            recordMetrics(DaoOperation.FIND_ONE_BY_SQL, start, entity == null ? MixedConstant.INT_0 : MixedConstant.INT_1, searchRequestBuilder);
+            return entity;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.FIND_ONE_BY_SQL, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -240,20 +304,44 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
     public List<T> findListByIds(List<Serializable> ids) throws DaoException {
         DaoHelper.checkArgumentIds(ids);
 
+        return Lists.newArrayList(this.findMapByIds(ids).values());
+    }
+
+    @Override
+    public LinkedHashMap<Serializable, T> findMapByIds(List<Serializable> ids) throws DaoException {
+        DaoHelper.checkArgumentIds(ids);
+
+        //按文档id去重并保持输入顺序
+        LinkedHashMap<String, Serializable> idMap = Maps.newLinkedHashMap();
+        for (Serializable id : ids) {
+            if (pkBloomIndex == null || pkBloomIndex.mightContain(id)) {
+                idMap.putIfAbsent(id.toString(), id);
+            }
+        }
+        LinkedHashMap<Serializable, T> entityMap = Maps.newLinkedHashMap();
+        if (idMap.isEmpty()) {
+            return entityMap;
+        }
+
         try {
-            Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
-            MultiGetResponse multiGetItemResponses = client.prepareMultiGet()
-                    .add(index, type, (Iterable) ids)
-                    .get();
-            List<T> entityList = Lists.newArrayList();
-            for (MultiGetItemResponse itemResponse : multiGetItemResponses) {
-                GetResponse response = itemResponse.getResponse();
-                if (response.isExists()) {
-                    String source = ElasticSearchHelper.setEsVersion(response, hasEsVersionFiled);
-                    entityList.add(FastJson.jsonStr2Object(source, entityClass));
+            int chunkSize = elasticSearchSettings.getIdChunkSize() > 0 ? elasticSearchSettings.getIdChunkSize() : ElasticSearchHelper.MGET_CHUNK_SIZE;
+            List<List<Serializable>> chunks = Lists.partition(Lists.newArrayList(idMap.values()), chunkSize);
+            Map<String, T> foundMap = Maps.newHashMapWithExpectedSize(idMap.size());
+            if (chunks.size() == MixedConstant.INT_1) {
+                foundMap.putAll(this.multiGet(chunks.get(MixedConstant.INT_0)));
+            } else {    //多批最多idChunkParallelism批并行执行,由协调节点分发到各副本
+                for (LinkedHashMap<String, T> chunkMap : DaoExecutors.mapBounded(chunks, elasticSearchSettings.getIdChunkParallelism(), this::multiGet)) {
+                    foundMap.putAll(chunkMap);
+                }
+            }
+
+            for (Map.Entry<String, Serializable> entry : idMap.entrySet()) {
+                T entity = foundMap.get(entry.getKey());
+                if (entity != null) {
+                    entityMap.put(entry.getValue(), entity);
                 }
             }
-            return entityList;
+            return entityMap;
         } catch (RuntimeException e) {
             throw DaoExceptionTranslator.translate(e);
         }
@@ -263,6 +351,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
     public List<T> findListByQuery(Query query) throws DaoException {
         DaoHelper.checkArgumentQuery(query);
 
+        long start = System.nanoTime();
         try {
 
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
@@ -277,6 +366,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
             if (queryBuilder != null) {
                 searchRequestBuilder.setQuery(queryBuilder);
             }
+            ElasticSearchHelper.setPreferenceAndRouting(searchRequestBuilder, query);
             int from = query.getOffset() < MixedConstant.INT_0 ? MixedConstant.INT_0 : query.getOffset();
             int size = query.getLimit() < MixedConstant.INT_1 ? Integer.MAX_VALUE : query.getLimit();
 
@@ -290,8 +380,10 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
                 if (log.isDebugEnabled()) {
                     log.debug("findListByQuery searchRequestBuilder:" + searchRequestBuilder.toString());
                 }
-                SearchResponse searchResponse = searchRequestBuilder.get();
-                return ElasticSearchHelper.getAggregationEntityList(searchResponse, entityClass, query.getGroupBys());
+                SearchResponse searchResponse = search(searchRequestBuilder);
+                List<T> entityList = ElasticSearchHelper.getAggregationEntityList(searchResponse, entityClass, query.getGroupBys());
+                recordMetrics(DaoOperation.FIND_LIST_BY_QUERY, start, entityList.size(), searchRequestBuilder);
+                return entityList;
             } else {
                 if (CollectionUtils.isNotEmpty(query.getOrderBys())) {
                     for (OrderBy orderBy : query.getOrderBys()) {
@@ -303,9 +395,12 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
                 }
 
                 queryOverloadProtect(searchRequestBuilder, from, size, queryBuilder);
-                return nonScrollQuery(searchRequestBuilder);
+                List<T> entityList = nonScrollQuery(searchRequestBuilder);
+                recordMetrics(DaoOperation.FIND_LIST_BY_QUERY, start, entityList.size(), searchRequestBuilder);
+                return entityList;
             }
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.FIND_LIST_BY_QUERY, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -321,10 +416,177 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
         return this.findListByQuery(query);
     }
 
+    /**
+     * 数据和命中总数在同一次search中返回
+     */
+    @Override
+    public Page<T> findPage(Query query, Pageable pageable) throws DaoException {
+        DaoHelper.checkArgumentQuery(query);
+        DaoHelper.checkArgumentPageable(pageable);
+        if (CollectionUtils.isNotEmpty(query.getGroupBys())) {
+            throw new DaoMethodParameterException("Param query for findPage must not have groupBys");
+        }
+
+        int limit = pageable.getPageSize();
+        int offset = (pageable.getPageNumber() - 1) * limit;
+        query.offset(offset).limit(limit);
+
+        long start = System.nanoTime();
+        try {
+            Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
+            SearchRequestBuilder searchRequestBuilder = client.prepareSearch()
+                    .setIndices(index)
+                    .setTypes(type)
+                    .setFetchSource(ElasticSearchHelper.includeFileds(query.getFields()), MixedConstant.EMPTY_STRING_ARRAY)
+                    .setFrom(offset)
+                    .setSize(limit);
+
+            QueryBuilder queryBuilder = ElasticSearchHelper.criteria2QueryBuilder(query.getCriteria());
+            if (queryBuilder != null) {
+                searchRequestBuilder.setQuery(queryBuilder);
+            }
+            ElasticSearchHelper.setPreferenceAndRouting(searchRequestBuilder, query);
+            if (CollectionUtils.isNotEmpty(query.getOrderBys())) {
+                for (OrderBy orderBy : query.getOrderBys()) {
+                    SortOrder order = OrderBy.Direction.ASC.getDirection().equals(orderBy.getDirection()) ? SortOrder.ASC : SortOrder.DESC;
+                    searchRequestBuilder.addSort(orderBy.getKey(), order);
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("findPage searchRequestBuilder:" + searchRequestBuilder.toString());
+            }
+
+            SearchResponse searchResponse;
+            try {
+                searchResponse = search(searchRequestBuilder);
+            } catch (ElasticsearchException e) {
+                throw ElasticSearchHelper.translateElasticSearchException(e);
+            }
+            List<T> entityList = ElasticSearchHelper.getEntityList(searchResponse, entityClass, hasEsVersionFiled);
+            if (dirtyTracker != null) {
+                dirtyTracker.trackAll(entityList);
+            }
+            recordMetrics(DaoOperation.FIND_PAGE, start, entityList.size(), searchRequestBuilder);
+            return new Page<T>(entityList, searchResponse.getHits().getTotalHits(), pageable.getPageNumber(), limit);
+        } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.FIND_PAGE, start, e);
+            throw DaoExceptionTranslator.translate(e);
+        }
+    }
+
+    /**
+     * 使用scroll分批读取并逐条写入outputStream,不转换成entity也不缓存结果
+     * 导出的列为query的fields,没有指定时为entity持久化的属性;scroll不支持from,offset之前的文档读出后跳过
+     */
+    @Override
+    public long export(Query query, OutputStream outputStream, ExportFormat format) throws DaoException {
+        DaoHelper.checkArgumentQuery(query);
+        if (CollectionUtils.isNotEmpty(query.getGroupBys())) {
+            throw new DaoMethodParameterException("Param query for export must not have groupBys");
+        }
+        if (outputStream == null || format == null) {
+            throw new DaoMethodParameterException("Param outputStream and format must be not null");
+        }
+
+        List<String> columns = Lists.newArrayList();
+        if (CollectionUtils.isNotEmpty(query.getFields())) {
+            columns.addAll(query.getFields());
+        } else {
+            for (Field field : entityClass.getDeclaredFields()) {
+                if (!DaoHelper.isFinalOrStatic(field) && !notNeedTransientPropertyList.contains(field.getName())) {
+                    columns.add(field.getName());
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        try {
+            Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
+            TimeValue keepAlive = TimeValue.timeValueMinutes(MixedConstant.INT_1);
+            SearchRequestBuilder searchRequestBuilder = client.prepareSearch()
+                    .setIndices(index)
+                    .setTypes(type)
+                    .setFetchSource(ElasticSearchHelper.includeFileds(query.getFields()), MixedConstant.EMPTY_STRING_ARRAY)
+                    .setVersion(hasEsVersionFiled)
+                    .setScroll(keepAlive)
+                    .setSize(ElasticSearchHelper.MAX_UPDATE_SIZE);
+
+            QueryBuilder queryBuilder = ElasticSearchHelper.criteria2QueryBuilder(query.getCriteria());
+            if (queryBuilder != null) {
+                searchRequestBuilder.setQuery(queryBuilder);
+            }
+            ElasticSearchHelper.setPreferenceAndRouting(searchRequestBuilder, query);
+            if (CollectionUtils.isNotEmpty(query.getOrderBys())) {
+                for (OrderBy orderBy : query.getOrderBys()) {
+                    SortOrder order = OrderBy.Direction.ASC.getDirection().equals(orderBy.getDirection()) ? SortOrder.ASC : SortOrder.DESC;
+                    searchRequestBuilder.addSort(orderBy.getKey(), order);
+                }
+            } else {
+                //没有排序要求时按_doc顺序scroll开销最小
+                searchRequestBuilder.addSort("_doc", SortOrder.ASC);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("export searchRequestBuilder:" + searchRequestBuilder.toString());
+            }
+
+            int skip = query.getOffset() < MixedConstant.INT_0 ? MixedConstant.INT_0 : query.getOffset();
+            long limit = query.getLimit() < MixedConstant.INT_1 ? Long.MAX_VALUE : query.getLimit();
+            ExportWriter writer = ExportWriter.of(format, outputStream, columns);
+            writer.writeHeader();
+            Object[] values = new Object[columns.size()];
+            long rows = MixedConstant.LONG_0;
+
+            SearchResponse searchResponse;
+            try {
+                searchResponse = searchRequestBuilder.get();
+            } catch (ElasticsearchException e) {
+                throw ElasticSearchHelper.translateElasticSearchException(e);
+            }
+            try {
+                while (rows < limit && searchResponse.getHits().getHits().length > 0) {
+                    for (SearchHit searchHit : searchResponse.getHits().getHits()) {
+                        if (skip > MixedConstant.INT_0) {
+                            skip--;
+                            continue;
+                        }
+                        if (rows >= limit) {
+                            break;
+                        }
+                        Map<String, Object> source = searchHit.getSourceAsMap();
+                        for (int i = 0; i < values.length; i++) {
+                            String column = columns.get(i);
+                            if (hasEsVersionFiled && ElasticSearchHelper.ES_VERSION_FIELD_NAME.equals(column)) {
+                                values[i] = searchHit.getVersion();
+                            } else if (column.equals(pkFieldName) && (source == null || source.get(column) == null)) {
+                                values[i] = searchHit.getId();
+                            } else {
+                                values[i] = source == null ? null : source.get(column);
+                            }
+                        }
+                        writer.writeRow(values);
+                        rows++;
+                    }
+                    if (rows < limit) {
+                        searchResponse = client.prepareSearchScroll(searchResponse.getScrollId()).setScroll(keepAlive).get();
+                    }
+                }
+            } finally {
+                client.prepareClearScroll().addScrollId(searchResponse.getScrollId()).get();
+            }
+            writer.finish();
+            recordMetrics(DaoOperation.EXPORT, start, rows, searchRequestBuilder);
+            return rows;
+        } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.EXPORT, start, e);
+            throw DaoExceptionTranslator.translate(e);
+        }
+    }
+
     @Override
     public List<T> findListBySql(String sql, LinkedHashMap<String, Object> param) throws DaoException {
         DaoHelper.checkArgument(sql);
 
+        long start = System.nanoTime();
         try {
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
             SearchRequestBuilder searchRequestBuilder = client.prepareSearch()
@@ -349,35 +611,153 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
                 if (log.isDebugEnabled()) {
                     log.debug("findListBySql searchRequestBuilder:" + searchRequestBuilder.toString());
                 }
-                SearchResponse searchResponse = searchRequestBuilder.get();
+                SearchResponse searchResponse = search(searchRequestBuilder);
                 param.put("aggregationResult", searchResponse.getAggregations());
+                recordMetrics(DaoOperation.FIND_LIST_BY_SQL, start, MixedConstant.INT_0, searchRequestBuilder);
                 return Collections.emptyList();
             } else {    //正常查询没有聚合
                 queryOverloadProtect(searchRequestBuilder, from, size, queryBuilder);
-                return nonScrollQuery(searchRequestBuilder);
+                List<T> entityList = nonScrollQuery(searchRequestBuilder);
+                recordMetrics(DaoOperation.FIND_LIST_BY_SQL, start, entityList.size(), searchRequestBuilder);
+                return entityList;
             }
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.FIND_LIST_BY_SQL, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
 
+    /**
+     * 使用_mget批量获取文档
+     *
+     * @param ids
+     * @return - 存在的文档,key为文档id
+     */
+    private LinkedHashMap<String, T> multiGet(final List<Serializable> ids) {
+        Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
+        long start = System.nanoTime();
+        MultiGetResponse multiGetItemResponses;
+        try {
+            multiGetItemResponses = coalesceRead("mget:" + ids, () -> client.prepareMultiGet()
+                    .add(index, type, (Iterable) ids)
+                    .get());
+        } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.FIND_MAP_BY_IDS, start, e);
+            throw e;
+        }
+        LinkedHashMap<String, T> entityMap = Maps.newLinkedHashMap();
+        for (MultiGetItemResponse itemResponse : multiGetItemResponses) {
+            GetResponse response = itemResponse.getResponse();
+            if (response.isExists()) {
+                String source = ElasticSearchHelper.setEsVersion(response, hasEsVersionFiled);
+                entityMap.put(response.getId(), track(FastJson.jsonStr2Object(source, entityClass)));
+            }
+        }
+        recordMetrics(DaoOperation.FIND_MAP_BY_IDS, start, entityMap.size(), null);
+        return entityMap;
+    }
+
+    /**
+     * 开启脏字段检查时记录entity的快照
+     */
+    private T track(T entity) {
+        if (dirtyTracker != null) {
+            dirtyTracker.track(entity);
+        }
+        return entity;
+    }
+
+    /**
+     * findOneById自动微批的统计信息
+     *
+     * @return - 未开启微批返回null
+     */
+    public IdBatchLoader.Stats getIdBatchStats() {
+        return idBatchLoader == null ? null : idBatchLoader.getStats();
+    }
+
+    /**
+     * es的副本选择由集群内部完成,数据源统一记为集群名称
+     */
+    private void recordMetrics(DaoOperation operation, long startNanos, long rows, SearchRequestBuilder searchRequestBuilder) {
+        long latencyNanos = System.nanoTime() - startNanos;
+        operationMetrics[operation.ordinal()].record(latencyNanos, rows, elasticSearchSettings.getClusterName());
+        recordSlowQuery(operation, searchRequestBuilder, latencyNanos, rows);
+    }
+
+    private void recordErrorMetrics(DaoOperation operation, long startNanos, Throwable e) {
+        long latencyNanos = System.nanoTime() - startNanos;
+        operationMetrics[operation.ordinal()].recordError(latencyNanos, e, elasticSearchSettings.getClusterName());
+        recordSlowQuery(operation, null, latencyNanos, MixedConstant.INT_0);
+    }
+
+    /**
+     * 只有需要记录时才计算请求指纹,search请求带上请求体的指纹,其余请求只有index/type和方法名
+     */
+    private void recordSlowQuery(DaoOperation operation, SearchRequestBuilder searchRequestBuilder, long latencyNanos, long rows) {
+        SlowQueryLog slowQueryLog = elasticSearchSettings.getSlowQueryLog();
+        if (slowQueryLog != null && slowQueryLog.accept(latencyNanos)) {
+            String fingerprint = index + "/" + type + " " + operation.methodName();
+            if (searchRequestBuilder != null) {
+                fingerprint += " " + ElasticSearchHelper.fingerprintJson(searchRequestBuilder.toString());
+            }
+            slowQueryLog.record(this.getClass().getSimpleName(), fingerprint, latencyNanos, rows);
+        }
+    }
+
+    /**
+     * 慢查询日志中按总耗时倒序的语句指纹统计
+     *
+     * @return - 未开启慢查询日志返回null
+     */
+    public List<SlowQueryStat> getSlowQueryTopN() {
+        return elasticSearchSettings.getSlowQueryLog() == null ? null : elasticSearchSettings.getSlowQueryLog().topStatements();
+    }
+
+    /**
+     * 执行一次search,开启读合并时以routing、preference和查询请求体作为key合并并发的相同请求
+     * SearchRequestBuilder.toString只包含请求体,routing和preference决定查询哪些分片,必须加入key
+     */
+    private SearchResponse search(SearchRequestBuilder searchRequestBuilder) {
+        SearchRequest request = searchRequestBuilder.request();
+        String key = "search:" + request.routing() + SymbolConstant.COLON + request.preference() + SymbolConstant.COLON + searchRequestBuilder.toString();
+        return coalesceRead(key, searchRequestBuilder::get);
+    }
+
+    /**
+     * 合并并发的相同读请求,合并的是es的原始响应,每个调用者各自转换entity
+     *
+     * @param key    - 读请求的标识
+     * @param loader - 真正的读操作
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private <R> R coalesceRead(String key, Supplier<R> loader) {
+        if (!elasticSearchSettings.isReadCoalescing()) {
+            return loader.get();
+        }
+        return (R) readSingleFlight.execute(key, (Supplier<Object>) loader);
+    }
+
     private List<T> nonScrollQuery(SearchRequestBuilder searchRequestBuilder) {
         if (log.isDebugEnabled()) {
             log.debug("nonScrollQuery searchRequestBuilder:" + searchRequestBuilder.toString());
         }
         SearchResponse searchResponse;
         try {
-            searchResponse = searchRequestBuilder.get();
+            searchResponse = search(searchRequestBuilder);
         } catch (ElasticsearchException e) {
             throw ElasticSearchHelper.translateElasticSearchException(e);
         }
-        return ElasticSearchHelper.getEntityList(searchResponse, entityClass, hasEsVersionFiled);
+        List<T> entityList = ElasticSearchHelper.getEntityList(searchResponse, entityClass, hasEsVersionFiled);
+        return dirtyTracker == null ? entityList : dirtyTracker.trackAll(entityList);
     }
 
     @Override
     public int insert(T entity) throws DaoException {
         DaoHelper.checkArgumentEntity(entity);
 
+        long start = System.nanoTime();
         try {
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
 
@@ -395,6 +775,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
             indexRequestBuilder.setSource(sourceJsonStr, XContentType.JSON);
 
             IndexResponse indexResponse = indexRequestBuilder.get();
+            recordMetrics(DaoOperation.INSERT, start, MixedConstant.INT_1, null);
 
             /**
              * 插入完成后把es自动生成的id设置回entity
@@ -403,23 +784,44 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
                 String idAfterInsert = indexResponse.getId();
                 DaoHelper.setColumnValue(pkField, idEntity, idAfterInsert);
             }
+            if (pkBloomIndex != null) {
+                pkBloomIndex.put(indexResponse.getId());
+            }
 
             /**
              * 插入完成后把es的version设置到entity
              */
             long version = indexResponse.getVersion();
             ElasticSearchHelper.setEsVersion(entity, version, hasEsVersionFiled);
+            track(entity);
             return new Long(version).intValue();         //新创建的文档版本都从1开始
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.INSERT, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
 
+    /**
+     * 开启脏字段检查时只更新变化的字段(带version字段时同时带上version),没有变化时不发请求,与es的noop一样返回0
+     */
     @Override
     public int update(T entity) throws DaoException {
         DaoHelper.checkArgumentEntity(entity);
 
-        return this.update(entity, null);
+        List<String> dirtyList = dirtyTracker == null ? null : dirtyTracker.dirtyProperties(entity);
+        if (dirtyList != null) {
+            if (dirtyList.isEmpty()) {
+                return MixedConstant.INT_0;
+            }
+            if (hasEsVersionFiled) {
+                dirtyList.add(ElasticSearchHelper.ES_VERSION_FIELD_NAME);
+            }
+        }
+        int n = this.update(entity, dirtyList);
+        if (n > MixedConstant.INT_0) {
+            track(entity);
+        }
+        return n;
     }
 
     @Override
@@ -447,6 +849,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
             throw new DaoException("The id[" + id + "] use version update, value must be long type[" + update.toString() + "]");
         }
 
+        long start = System.nanoTime();
         try {
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
             UpdateRequestBuilder updateRequestBuilder = client.prepareUpdate()
@@ -459,18 +862,19 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
 
             UpdateResponse updateResponse = updateRequestBuilder.get();
             int op = updateResponse.getResult().getOp();
-            if (op == DocWriteResponse.Result.NOOP.getOp()) {   //值没有变化,_version不会增加
-                return MixedConstant.INT_0;
-            }
-            return MixedConstant.INT_1;
+            int n = op == DocWriteResponse.Result.NOOP.getOp() ? MixedConstant.INT_0 : MixedConstant.INT_1;  //值没有变化,_version不会增加
+            recordMetrics(DaoOperation.UPDATE_BY_ID, start, n, null);
+            return n;
         } catch (VersionConflictEngineException e) {
             if (oldVersion == Versions.MATCH_ANY) {
                 this.refresh();
                 return this.updateById(id, update);
             } else {
+                recordErrorMetrics(DaoOperation.UPDATE_BY_ID, start, e);
                 throw DaoExceptionTranslator.translate(e);
             }
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.UPDATE_BY_ID, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -510,6 +914,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
         DaoHelper.checkArgumentCriteria(criteria);
         DaoHelper.checkArgumentUpdate(update);
 
+        long start = System.nanoTime();
         try {
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
             QueryBuilder queryBuilder = ElasticSearchHelper.criteria2QueryBuilder(criteria);
@@ -540,6 +945,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
             SearchResponse searchResponse = searchRequestBuilder.get();
             SearchHits searchHits = searchResponse.getHits();
             if (searchHits.getTotalHits() == MixedConstant.LONG_0) {
+                recordMetrics(DaoOperation.UPDATE_BY_CRITERIA, start, MixedConstant.INT_0, searchRequestBuilder);
                 return MixedConstant.INT_0;
             }
 
@@ -548,8 +954,11 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
                 String id = searchHit.getId();
                 ids.add(id);
             }
-            return this.updateByIds(ids, update);
+            int n = this.updateByIds(ids, update);
+            recordMetrics(DaoOperation.UPDATE_BY_CRITERIA, start, n, searchRequestBuilder);
+            return n;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.UPDATE_BY_CRITERIA, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -563,6 +972,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
     public int deleteById(Serializable id) throws DaoException {
         DaoHelper.checkArgumentId(id);
 
+        long start = System.nanoTime();
         try {
             Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
             DeleteResponse deleteResponse = client.prepareDelete()
@@ -572,11 +982,114 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
                     .get();
 
             int op = deleteResponse.getResult().getOp();
-            if (op == DocWriteResponse.Result.NOT_FOUND.getOp()) {
-                return MixedConstant.INT_0;
+            int n = op == DocWriteResponse.Result.NOT_FOUND.getOp() ? MixedConstant.INT_0 : MixedConstant.INT_1;
+            recordMetrics(DaoOperation.DELETE_BY_ID, start, n, null);
+            return n;
+        } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.DELETE_BY_ID, start, e);
+            throw DaoExceptionTranslator.translate(e);
+        }
+    }
+
+    /**
+     * 按BULK_CHUNK_SIZE分批_bulk删除,只统计结果为DELETED的文档
+     * 某批有失败项时抛出异常,之前批次已删除的文档不会恢复
+     */
+    @Override
+    public int deleteByIds(List<Serializable> ids) throws DaoException {
+        DaoHelper.checkArgumentIds(ids);
+
+        long start = System.nanoTime();
+        try {
+            Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
+            int n = MixedConstant.INT_0;
+            for (List<Serializable> chunk : Lists.partition(ids, ElasticSearchHelper.BULK_CHUNK_SIZE)) {
+                BulkRequestBuilder bulkRequestBuilder = client.prepareBulk();
+                for (Serializable id : chunk) {
+                    bulkRequestBuilder.add(client.prepareDelete(index, type, ElasticSearchHelper.getIdSerializable(id)));
+                }
+                BulkResponse bulkResponse = bulkRequestBuilder.get();
+                for (BulkItemResponse itemResponse : bulkResponse.getItems()) {
+                    if (!itemResponse.isFailed() && itemResponse.getResponse().getResult() == DocWriteResponse.Result.DELETED) {
+                        n++;
+                    }
+                }
+                if (bulkResponse.hasFailures()) {
+                    throw new DaoException("方法deleteByIds已删除[" + n + "]个文档后失败:" + bulkResponse.buildFailureMessage());
+                }
+            }
+            recordMetrics(DaoOperation.DELETE_BY_IDS, start, n, null);
+            return n;
+        } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.DELETE_BY_IDS, start, e);
+            throw DaoExceptionTranslator.translate(e);
+        }
+    }
+
+    /**
+     * 使用_delete_by_query删除,版本冲突(删除期间被修改)的文档跳过不删
+     */
+    @Override
+    public int deleteByCriteria(Criteria criteria) throws DaoException {
+        DaoHelper.checkArgumentCriteria(criteria);
+
+        long start = System.nanoTime();
+        try {
+            Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
+            QueryBuilder queryBuilder = ElasticSearchHelper.criteria2QueryBuilder(criteria);
+            DeleteByQueryRequestBuilder deleteByQueryRequestBuilder = DeleteByQueryAction.INSTANCE.newRequestBuilder(client)
+                    .filter(queryBuilder == null ? QueryBuilders.matchAllQuery() : queryBuilder)
+                    .source(index)
+                    .abortOnVersionConflict(false);
+            deleteByQueryRequestBuilder.source().setTypes(type);
+
+            if (log.isDebugEnabled()) {
+                log.debug("deleteByCriteria searchRequestBuilder:" + deleteByQueryRequestBuilder.source().toString());
+            }
+            BulkByScrollResponse response = deleteByQueryRequestBuilder.get();
+            int n = Ints.saturatedCast(response.getDeleted());
+            if (!response.getBulkFailures().isEmpty() || !response.getSearchFailures().isEmpty()) {
+                Object failure = response.getBulkFailures().isEmpty() ? response.getSearchFailures().get(0) : response.getBulkFailures().get(0);
+                throw new DaoException("方法deleteByCriteria已删除[" + n + "]个文档后失败:" + failure);
+            }
+            recordMetrics(DaoOperation.DELETE_BY_CRITERIA, start, n, deleteByQueryRequestBuilder.source());
+            return n;
+        } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.DELETE_BY_CRITERIA, start, e);
+            throw DaoExceptionTranslator.translate(e);
+        }
+    }
+
+    @Override
+    public List<AggregationRow> aggregate(Query query) throws DaoException {
+        DaoHelper.checkArgumentAggregationQuery(query);
+
+        long start = System.nanoTime();
+        try {
+            Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
+            SearchRequestBuilder searchRequestBuilder = client.prepareSearch()
+                    .setIndices(index)
+                    .setTypes(type)
+                    .setSize(MixedConstant.INT_0)
+                    .setFetchSource(false);
+
+            QueryBuilder queryBuilder = ElasticSearchHelper.criteria2QueryBuilder(query.getCriteria());
+            if (queryBuilder != null) {
+                searchRequestBuilder.setQuery(queryBuilder);
+            }
+            ElasticSearchHelper.setPreferenceAndRouting(searchRequestBuilder, query);
+            for (AggregationBuilder aggregationBuilder : ElasticSearchHelper.aggregation2AggregationBuilders(query)) {
+                searchRequestBuilder.addAggregation(aggregationBuilder);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("aggregate searchRequestBuilder:" + searchRequestBuilder.toString());
             }
-            return MixedConstant.INT_1;
+            SearchResponse searchResponse = search(searchRequestBuilder);
+            List<AggregationRow> rowList = ElasticSearchHelper.getAggregationRows(searchResponse, query);
+            recordMetrics(DaoOperation.AGGREGATE, start, rowList.size(), searchRequestBuilder);
+            return rowList;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.AGGREGATE, start, e);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -728,7 +1241,7 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
             if (queryBuilder != null) {
                 countSearchBuilder.setQuery(queryBuilder);
             }
-            SearchResponse searchResponse = countSearchBuilder.get();
+            SearchResponse searchResponse = search(countSearchBuilder);
             long actualSize = searchResponse.getHits().getTotalHits();
             if (actualSize >= Integer.MAX_VALUE) {
                 throw new DaoException("此次查询命中文档数已经大于Integer.MAX_VALUE,拒绝查询,查询条件searchRequestBuilder[" + searchRequestBuilder.toString() + "]");
@@ -779,5 +1292,74 @@ public abstract class ElasticSearchBaseDao<T> implements ApplicationContextAware
                 notNeedTransientPropertyList.add(propertyName);
             }
         }
+
+        //脏字段检查,不包括主键、version和不持久化的字段
+        if (elasticSearchSettings.isDirtyTracking()) {
+            List<String> propertyList = Lists.newArrayList();
+            for (Field field : fields) {
+                String propertyName = field.getName();
+                if (DaoHelper.isFinalOrStatic(field) || propertyName.equals(pkFieldName)
+                        || propertyName.equals(ElasticSearchHelper.ES_VERSION_FIELD_NAME) || notNeedTransientPropertyList.contains(propertyName)) {
+                    continue;
+                }
+                propertyList.add(propertyName);
+            }
+            this.dirtyTracker = new DirtyTracker(entityClass, propertyList);
+        }
+
+        //dao指标
+        DaoOperation[] operations = DaoOperation.values();
+        this.operationMetrics = new DaoOperationMetrics[operations.length];
+        for (DaoOperation operation : operations) {
+            this.operationMetrics[operation.ordinal()] = elasticSearchSettings.getDaoMetrics().operationMetrics(daoClass, entityClass, operation);
+        }
+
+        //findOneById自动微批,批量查询使用_mget
+        if (elasticSearchSettings.getIdBatchWindowMicros() > 0) {
+            this.idBatchLoader = new IdBatchLoader<T>(elasticSearchSettings.getIdBatchWindowMicros(), elasticSearchSettings.getIdBatchMaxSize(), ids -> {
+                try {
+                    return this.multiGet(ids);
+                } catch (RuntimeException e) {
+                    throw DaoExceptionTranslator.translate(e);
+                }
+            });
+        }
+
+        //主键布隆过滤器
+        String bloomFilterSettingsName = DaoHelper.getBloomFilterSettingsName(daoClass);
+        if (StringUtils.isNotBlank(bloomFilterSettingsName)) {
+            BloomFilterSettings bloomFilterSettings = (BloomFilterSettings) this.applicationContext.getBean(bloomFilterSettingsName);
+            this.pkBloomIndex = new PkBloomIndex(entityClass.getSimpleName(), bloomFilterSettings, this::scanPk);
+            this.pkBloomIndex.start();
+        }
+    }
+
+    /**
+     * 使用scroll流式扫描全部文档id,用于构建主键布隆过滤器
+     * scroll只能读到已refresh的文档,先refresh,保证重建开始前写入的文档都能扫描到
+     *
+     * @param consumer
+     */
+    private void scanPk(Consumer<Serializable> consumer) {
+        this.refresh();
+        Client client = ElasticSearchClientFactory.INSTANCE.getClient(elasticSearchSettings);
+        TimeValue keepAlive = TimeValue.timeValueMinutes(MixedConstant.INT_1);
+        SearchResponse searchResponse = client.prepareSearch()
+                .setIndices(index)
+                .setTypes(type)
+                .setFetchSource(false)
+                .setScroll(keepAlive)
+                .setSize(ElasticSearchHelper.MAX_UPDATE_SIZE)
+                .get();
+        try {
+            while (searchResponse.getHits().getHits().length > 0) {
+                for (SearchHit searchHit : searchResponse.getHits().getHits()) {
+                    consumer.accept(searchHit.getId());
+                }
+                searchResponse = client.prepareSearchScroll(searchResponse.getScrollId()).setScroll(keepAlive).get();
+            }
+        } finally {
+            client.prepareClearScroll().addScrollId(searchResponse.getScrollId()).get();
+        }
     }
 }
@@ -6,10 +6,17 @@ import com.github.zhouyutong.zorm.dao.DaoHelper;
 import com.github.zhouyutong.zorm.dao.elasticsearch.annotation.Document;
 import com.github.zhouyutong.zorm.entity.IdEntity;
 import com.github.zhouyutong.zorm.exception.DaoException;
+import com.github.zhouyutong.zorm.exception.DaoMethodParameterException;
+import com.github.zhouyutong.zorm.query.Aggregation;
+import com.github.zhouyutong.zorm.query.AggregationRow;
 import com.github.zhouyutong.zorm.query.Criteria;
 import com.github.zhouyutong.zorm.query.CriteriaOperators;
 import com.github.zhouyutong.zorm.query.GroupBy;
+import com.github.zhouyutong.zorm.query.OrderBy;
+import com.github.zhouyutong.zorm.query.Query;
 import com.github.zhouyutong.zorm.utils.BeanUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.github.zhouyutong.zorm.query.Update;
@@ -17,14 +24,22 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.PipelineAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorBuilders;
 
 import java.io.Serializable;
 import java.lang.reflect.Field;
@@ -32,6 +47,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -49,9 +65,31 @@ public final class ElasticSearchHelper {
      * 批量更新最大数量
      */
     public static final int MAX_UPDATE_SIZE = 1000;
+    /**
+     * findListByIds单次_mget的默认文档数量
+     */
+    public static final int MGET_CHUNK_SIZE = 1000;
+    /**
+     * deleteByIds单次_bulk的文档数量
+     */
+    public static final int BULK_CHUNK_SIZE = 1000;
     public static final char COMMON_WILDCARD = '%';
     public static final char ES_WILDCARD = '*';
     public static final String ES_VERSION_FIELD_NAME = "esVersion";
+    private static final String GROUP_SUFFIX = "_group";
+    //es内置的search preference,以:结尾的需要带参数
+    private static final List<String> BUILT_IN_PREFERENCES = ImmutableList.of("_primary", "_primary_first", "_replica", "_replica_first",
+            "_local", "_only_local", "_only_node:", "_only_nodes:", "_prefer_nodes:", "_shards:");
+    private static final String HAVING_AGGREGATION_NAME = "having_selector";
+    private static final Map<String, String> HAVING_OPERATOR_MAP = ImmutableMap.<String, String>builder()
+            .put(CriteriaOperators.GT.getOperators(), " > ")
+            .put(CriteriaOperators.GTE.getOperators(), " >= ")
+            .put(CriteriaOperators.LT.getOperators(), " < ")
+            .put(CriteriaOperators.LTE.getOperators(), " <= ")
+            .put(CriteriaOperators.EQ.getOperators(), " == ")
+            .put(CriteriaOperators.NE.getOperators(), " != ")
+            .build();
+    private static final Pattern JSON_ARRAY_PATTERN = Pattern.compile("\\[\\?(?:,\\?)*\\]");
 
     private ElasticSearchHelper() {
     }
@@ -73,7 +111,17 @@ public final class ElasticSearchHelper {
             String operator = c.getOperator();
             Object value = c.getValue();
 
-            if (CriteriaOperators.EQ.match(operator)) {
+            if (CriteriaOperators.OR.match(operator)) {     //任一满足:should且至少匹配1个
+                BoolQueryBuilder shouldQueryBuilder = boolQuery().minimumShouldMatch(MixedConstant.INT_1);
+                for (Criteria groupCriteria : c.getGroupCriterias()) {
+                    shouldQueryBuilder.should(criteria2QueryBuilder(groupCriteria));
+                }
+                boolQueryBuilder.must(shouldQueryBuilder);
+            } else if (CriteriaOperators.AND.match(operator)) {
+                for (Criteria groupCriteria : c.getGroupCriterias()) {
+                    boolQueryBuilder.must(criteria2QueryBuilder(groupCriteria));
+                }
+            } else if (CriteriaOperators.EQ.match(operator)) {
                 boolQueryBuilder.must(termQuery(field, value));
             } else if (CriteriaOperators.GTE.match(operator)) {
                 boolQueryBuilder.must(rangeQuery(field).gte(value));
@@ -110,6 +158,35 @@ public final class ElasticSearchHelper {
         return boolQueryBuilder;
     }
 
+    /**
+     * Query.hint作为search preference,Query.routing作为routing
+     * 以_开头的preference必须是es内置的取值,其余作为自定义字符串使同一用户的请求落在相同分片副本上
+     *
+     * @param searchRequestBuilder -
+     * @param query                -
+     */
+    static void setPreferenceAndRouting(SearchRequestBuilder searchRequestBuilder, Query query) {
+        String preference = query.getHint();
+        if (preference != null) {
+            if (preference.charAt(MixedConstant.INT_0) == '_' && !isBuiltInPreference(preference)) {
+                throw new DaoMethodParameterException("Param query hint[" + preference + "] is not a valid search preference");
+            }
+            searchRequestBuilder.setPreference(preference);
+        }
+        if (query.getRouting() != null) {
+            searchRequestBuilder.setRouting(query.getRouting());
+        }
+    }
+
+    private static boolean isBuiltInPreference(String preference) {
+        for (String builtIn : BUILT_IN_PREFERENCES) {
+            if (builtIn.endsWith(":") ? preference.startsWith(builtIn) && preference.length() > builtIn.length() : preference.equals(builtIn)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     static String[] includeFileds(List<String> fields) {
         if (CollectionUtils.isEmpty(fields)) {
             return MixedConstant.EMPTY_STRING_ARRAY;
@@ -144,7 +221,7 @@ public final class ElasticSearchHelper {
         GroupBy groupBy = groupByList.get(0);
         String key = groupBy.getKey();
         /**String groupCountAlias = groupBy.getGroupCountAlias();*/
-        String termsName = key + "_group";
+        String termsName = key + GROUP_SUFFIX;
         return AggregationBuilders.terms(termsName).field(key);
     }
 
@@ -163,7 +240,7 @@ public final class ElasticSearchHelper {
         GroupBy groupBy = groupByList.get(0);
         String key = groupBy.getKey();
         String groupCountAlias = groupBy.getGroupCountAlias();
-        String termsName = key + "_group";
+        String termsName = key + GROUP_SUFFIX;
 
         List<T> entityList = Lists.newArrayList();
         Terms terms = searchResponse.getAggregations().get(termsName);
@@ -182,6 +259,179 @@ public final class ElasticSearchHelper {
         return entityList;
     }
 
+    /**
+     * 聚合query翻译为es聚合
+     * 多个group by按顺序嵌套terms,metric子聚合和having(bucket_selector)放在最内层terms下,没有group by时metric聚合放在顶层
+     * bucket_selector在terms截断之后执行,所以有having或多级group by时terms不截断,offset/limit在展开后的行上处理
+     *
+     * @param query -
+     * @return
+     */
+    static List<AggregationBuilder> aggregation2AggregationBuilders(Query query) {
+        List<AggregationBuilder> metricList = Lists.newArrayList();
+        for (Aggregation aggregation : query.getAggregations()) {
+            if (aggregation.getType() != Aggregation.Type.COUNT) {  //count(*)直接取doc_count
+                metricList.add(metricAggregationBuilder(aggregation));
+            }
+        }
+        List<GroupBy> groupByList = query.getGroupBys();
+        if (groupByList.isEmpty()) {
+            if (query.getHaving() != null) {
+                throw new DaoException("ElasticSearchBaseDao的having需要group by");
+            }
+            return metricList;
+        }
+
+        int bucketSize = Integer.MAX_VALUE;
+        if (query.getHaving() == null && groupByList.size() == MixedConstant.INT_1 && query.getLimit() > MixedConstant.INT_0) {
+            bucketSize = Math.max(query.getOffset(), MixedConstant.INT_0) + query.getLimit();
+        }
+        TermsAggregationBuilder inner = null;
+        for (int level = groupByList.size() - MixedConstant.INT_1; level >= MixedConstant.INT_0; level--) {
+            String key = groupByList.get(level).getKey();
+            TermsAggregationBuilder terms = AggregationBuilders.terms(key + GROUP_SUFFIX).field(key).size(bucketSize);
+            List<Terms.Order> orderList = Lists.newArrayList();
+            for (OrderBy orderBy : query.getOrderBys()) {
+                boolean asc = OrderBy.Direction.ASC.getDirection().equals(orderBy.getDirection());
+                Aggregation aggregation = findAggregation(query, orderBy.getKey());
+                if (key.equals(orderBy.getKey())) {
+                    orderList.add(Terms.Order.term(asc));
+                } else if (aggregation != null && inner == null) {
+                    orderList.add(aggregation.getType() == Aggregation.Type.COUNT ? Terms.Order.count(asc) : Terms.Order.aggregation(aggregation.getAlias(), asc));
+                }
+            }
+            if (!orderList.isEmpty()) {
+                terms.order(orderList);
+            }
+            if (inner == null) {
+                for (AggregationBuilder metric : metricList) {
+                    terms.subAggregation(metric);
+                }
+                if (query.getHaving() != null) {
+                    terms.subAggregation(having2BucketSelector(query));
+                }
+            } else {
+                terms.subAggregation(inner);
+            }
+            inner = terms;
+        }
+        return Lists.<AggregationBuilder>newArrayList(inner);
+    }
+
+    private static AggregationBuilder metricAggregationBuilder(Aggregation aggregation) {
+        String alias = aggregation.getAlias();
+        String key = aggregation.getKey();
+        switch (aggregation.getType()) {
+            case COUNT_DISTINCT:
+                return AggregationBuilders.cardinality(alias).field(key);
+            case SUM:
+                return AggregationBuilders.sum(alias).field(key);
+            case AVG:
+                return AggregationBuilders.avg(alias).field(key);
+            case MIN:
+                return AggregationBuilders.min(alias).field(key);
+            case MAX:
+                return AggregationBuilders.max(alias).field(key);
+            default:
+                throw new DaoException("不支持的聚合" + aggregation);
+        }
+    }
+
+    /**
+     * having翻译为bucket_selector,只支持聚合别名和比较操作符,比较值作为脚本参数传入
+     */
+    private static PipelineAggregationBuilder having2BucketSelector(Query query) {
+        Map<String, String> bucketsPathMap = Maps.newHashMap();
+        Map<String, Object> params = Maps.newHashMap();
+        StringBuilder script = new StringBuilder();
+        List<Criteria> criteriaChain = query.getHaving().getCriteriaChain();
+        for (int i = MixedConstant.INT_0; i < criteriaChain.size(); i++) {
+            Criteria c = criteriaChain.get(i);
+            Aggregation aggregation = findAggregation(query, c.getKey());
+            String operator = HAVING_OPERATOR_MAP.get(c.getOperator());
+            if (aggregation == null || operator == null || !(c.getValue() instanceof Number)) {
+                throw new DaoException("ElasticSearchBaseDao的having只支持聚合别名和数字比较,不支持[" + c.getKey() + c.getOperator() + c.getValue() + "]");
+            }
+            bucketsPathMap.put(aggregation.getAlias(), aggregation.getType() == Aggregation.Type.COUNT ? "_count" : aggregation.getAlias());
+            String paramName = "having_" + i;
+            params.put(paramName, c.getValue());
+            if (i > MixedConstant.INT_0) {
+                script.append(" && ");
+            }
+            script.append("params.").append(aggregation.getAlias()).append(operator).append("params.").append(paramName);
+        }
+        return PipelineAggregatorBuilders.bucketSelector(HAVING_AGGREGATION_NAME, bucketsPathMap,
+                new Script(ScriptType.INLINE, Script.DEFAULT_SCRIPT_LANG, script.toString(), params));
+    }
+
+    private static Aggregation findAggregation(Query query, String alias) {
+        for (Aggregation aggregation : query.getAggregations()) {
+            if (aggregation.getAlias().equals(alias)) {
+                return aggregation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 展开聚合结果为行,多级group by每个最内层bucket一行
+     *
+     * @param searchResponse -
+     * @param query          -
+     * @return
+     */
+    static List<AggregationRow> getAggregationRows(SearchResponse searchResponse, Query query) {
+        List<AggregationRow> rowList = Lists.newArrayList();
+        if (query.getGroupBys().isEmpty()) {
+            AggregationRow row = new AggregationRow();
+            fillMetrics(row, searchResponse.getAggregations(), searchResponse.getHits().getTotalHits(), query.getAggregations());
+            rowList.add(row);
+        } else if (searchResponse.getAggregations() != null) {
+            collectBuckets(searchResponse.getAggregations(), MixedConstant.INT_0, query, new AggregationRow(), rowList);
+        }
+
+        int from = Math.min(Math.max(query.getOffset(), MixedConstant.INT_0), rowList.size());
+        int to = query.getLimit() > MixedConstant.INT_0 ? Math.min(from + query.getLimit(), rowList.size()) : rowList.size();
+        return from == MixedConstant.INT_0 && to == rowList.size() ? rowList : Lists.newArrayList(rowList.subList(from, to));
+    }
+
+    private static void collectBuckets(Aggregations aggregations, int level, Query query, AggregationRow parentRow, List<AggregationRow> rowList) {
+        GroupBy groupBy = query.getGroupBys().get(level);
+        Terms terms = aggregations.get(groupBy.getKey() + GROUP_SUFFIX);
+        if (terms == null) {
+            return;
+        }
+        boolean leaf = level == query.getGroupBys().size() - MixedConstant.INT_1;
+        for (Terms.Bucket bucket : terms.getBuckets()) {
+            AggregationRow row = parentRow.copy().put(groupBy.getKey(), bucket.getKey());
+            if (leaf) {
+                fillMetrics(row, bucket.getAggregations(), bucket.getDocCount(), query.getAggregations());
+                rowList.add(row);
+            } else {
+                collectBuckets(bucket.getAggregations(), level + MixedConstant.INT_1, query, row, rowList);
+            }
+        }
+    }
+
+    /**
+     * 没有文档时es的avg为NaN、min/max为Infinity,统一转为null
+     */
+    private static void fillMetrics(AggregationRow row, Aggregations aggregations, long docCount, List<Aggregation> aggregationList) {
+        for (Aggregation aggregation : aggregationList) {
+            if (aggregation.getType() == Aggregation.Type.COUNT) {
+                row.put(aggregation.getAlias(), docCount);
+                continue;
+            }
+            NumericMetricsAggregation.SingleValue metric = aggregations == null ? null : aggregations.get(aggregation.getAlias());
+            double value = metric == null ? Double.NaN : metric.value();
+            if (aggregation.getType() == Aggregation.Type.COUNT_DISTINCT) {
+                row.put(aggregation.getAlias(), Double.isNaN(value) ? MixedConstant.LONG_0 : (long) value);
+            } else {
+                row.put(aggregation.getAlias(), Double.isNaN(value) || Double.isInfinite(value) ? null : value);
+            }
+        }
+    }
+
     static <T> T getEntity(SearchResponse searchResponse, Class<T> entityClass, boolean hasEsVersionFiled) {
         SearchHits searchHits = searchResponse.getHits();
         if (searchHits.getTotalHits() == MixedConstant.LONG_0) {
@@ -393,4 +643,46 @@ public final class ElasticSearchHelper {
             throw new DaoException("entity[" + entityClassName + "]的pk字段类型只能是Long,Integer,String其中之一");
         }
     }
+
+    /**
+     * 得到请求体json的指纹,用于慢查询统计
+     * 字段名保留,字符串、数字、true/false/null的值替换为?,去掉所有空白,值数组不论长度都折叠为[?+]
+     *
+     * @param json
+     * @return
+     */
+    static String fingerprintJson(String json) {
+        StringBuilder sb = new StringBuilder(json.length());
+        int length = json.length();
+        for (int i = 0; i < length; i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                int start = i++;
+                while (i < length && json.charAt(i) != '"') {
+                    if (json.charAt(i) == '\\') {    //跳过转义字符
+                        i++;
+                    }
+                    i++;
+                }
+                int next = i + 1;
+                while (next < length && Character.isWhitespace(json.charAt(next))) {
+                    next++;
+                }
+                if (next < length && json.charAt(next) == ':') {  //字段名
+                    sb.append(json, start, Math.min(i + 1, length));
+                } else {
+                    sb.append('?');
+                }
+            } else if (c == '-' || Character.isLetterOrDigit(c)) {  //数字或true/false/null
+                while (i + 1 < length && (Character.isLetterOrDigit(json.charAt(i + 1)) || json.charAt(i + 1) == '.'
+                        || json.charAt(i + 1) == '-' || json.charAt(i + 1) == '+')) {
+                    i++;
+                }
+                sb.append('?');
+            } else if (!Character.isWhitespace(c)) {
+                sb.append(c);
+            }
+        }
+        return JSON_ARRAY_PATTERN.matcher(sb.toString()).replaceAll("[?+]");
+    }
 }
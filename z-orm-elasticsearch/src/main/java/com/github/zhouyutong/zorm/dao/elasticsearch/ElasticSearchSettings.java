@@ -1,6 +1,9 @@
 package com.github.zhouyutong.zorm.dao.elasticsearch;
 
 import com.github.zhouyutong.zorm.dao.DaoSettings;
+import com.github.zhouyutong.zorm.dao.metrics.DaoMetrics;
+import com.github.zhouyutong.zorm.dao.metrics.NoopDaoMetrics;
+import com.github.zhouyutong.zorm.dao.slowlog.SlowQueryLog;
 import lombok.Data;
 
 /**
@@ -20,4 +23,36 @@ public final class ElasticSearchSettings implements DaoSettings {
      * 集群名称
      */
     private String clusterName = "elasticsearch";
+    /**
+     * 是否合并并发的相同读请求(相同的查询请求体)
+     */
+    private boolean readCoalescing = false;
+    /**
+     * findOneById自动微批的时间窗口(微秒),窗口内的单主键查询合并成一次批量查询,小于等于0表示不开启
+     */
+    private long idBatchWindowMicros = 0L;
+    /**
+     * findOneById自动微批一批最多的主键数量,达到后不等时间窗口立即执行
+     */
+    private int idBatchMaxSize = 100;
+    /**
+     * findListByIds单次_mget最多的文档数量,超过后分批并行获取,小于等于0使用默认值1000
+     */
+    private int idChunkSize = 0;
+    /**
+     * findListByIds分批获取时单次调用最多同时执行的_mget数(含调用线程)
+     */
+    private int idChunkParallelism = 4;
+    /**
+     * dao指标,默认不记录,可配置InMemoryDaoMetrics或自定义实现
+     */
+    private DaoMetrics daoMetrics = NoopDaoMetrics.INSTANCE;
+    /**
+     * 慢查询日志和语句指纹top-N统计,为null表示不开启
+     */
+    private SlowQueryLog slowQueryLog;
+    /**
+     * 是否开启脏字段检查,开启后update(entity)只更新dao读出或写入后变化的字段,没有变化时不发请求
+     */
+    private boolean dirtyTracking = false;
 }
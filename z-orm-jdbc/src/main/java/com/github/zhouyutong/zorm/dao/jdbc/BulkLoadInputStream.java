@@ -0,0 +1,146 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import org.apache.commons.lang3.time.FastDateFormat;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+
+/**
+ * 把行数据按需编码成LOAD DATA的文本格式,驱动读到哪里才从rows取到哪里,同一时刻只缓存一行
+ * 格式见Dialect.loadDataSql,最多读取maxRows行后结束,剩余的行留给下一个流
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+final class BulkLoadInputStream extends InputStream {
+    private static final FastDateFormat DATE_FORMAT = FastDateFormat.getInstance("yyyy-MM-dd HH:mm:ss.SSS");
+
+    private final Iterator<Object[]> rows;
+    private final int maxRows;
+    private byte[] buf = new byte[4096];
+    private int pos;
+    private int limit;
+    private int rowCount;
+
+    BulkLoadInputStream(Iterator<Object[]> rows, int maxRows) {
+        this.rows = rows;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * 已经从rows取出的行数
+     */
+    int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int read() {
+        if (pos >= limit && !fill()) {
+            return -1;
+        }
+        return buf[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        int n = 0;
+        while (n < len) {
+            if (pos >= limit && !fill()) {
+                break;
+            }
+            int k = Math.min(len - n, limit - pos);
+            System.arraycopy(buf, pos, b, off + n, k);
+            pos += k;
+            n += k;
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    private boolean fill() {
+        pos = 0;
+        limit = 0;
+        if (rowCount >= maxRows || !rows.hasNext()) {
+            return false;
+        }
+        Object[] values = rows.next();
+        rowCount++;
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                append('\t');
+            }
+            Object value = ColumnValue.unwrap(values[i]);
+            if (value == null) {
+                append('\\');
+                append('N');
+            } else {
+                appendEscaped(value instanceof byte[] ? (byte[]) value : textOf(value).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        append('\n');
+        return true;
+    }
+
+    private static String textOf(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value ? "1" : "0";
+        }
+        if (value instanceof java.sql.Date || value instanceof java.sql.Time) {
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            return DATE_FORMAT.format((Date) value);
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * UTF-8的多字节序列都大于0x7F,按字节转义不会破坏字符
+     */
+    private void appendEscaped(byte[] bytes) {
+        for (byte b : bytes) {
+            switch (b) {
+                case '\\':
+                    append('\\');
+                    append('\\');
+                    break;
+                case '\t':
+                    append('\\');
+                    append('t');
+                    break;
+                case '\n':
+                    append('\\');
+                    append('n');
+                    break;
+                case '\r':
+                    append('\\');
+                    append('r');
+                    break;
+                case 0:
+                    append('\\');
+                    append('0');
+                    break;
+                default:
+                    append(b);
+            }
+        }
+    }
+
+    private void append(int b) {
+        if (limit == buf.length) {
+            byte[] bigger = new byte[buf.length * 2];
+            System.arraycopy(buf, 0, bigger, 0, limit);
+            buf = bigger;
+        }
+        buf[limit++] = (byte) b;
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import com.google.common.collect.Lists;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * bulkInsert的执行统计,每批提交后更新
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Getter
+@ToString(exclude = "startMillis")
+public class BulkLoadStats {
+    /**
+     * 最多保留的拒绝原因条数
+     */
+    private static final int MAX_REJECT_SAMPLES = 10;
+
+    private Mode mode;
+    private int chunks;
+    /**
+     * 从调用方读到的entity数
+     */
+    private long submittedRows;
+    private long loadedRows;
+    /**
+     * 校验不通过、主键冲突、数据转换失败等没有写入的行数
+     */
+    private long rejectedRows;
+    /**
+     * 前几条拒绝原因,LOAD DATA时为数据库的warning
+     */
+    private final List<String> rejectSamples = Lists.newArrayList();
+    private long elapsedMillis;
+
+    private final long startMillis = System.currentTimeMillis();
+
+    /**
+     * 每秒写入的行数
+     */
+    public long getRowsPerSecond() {
+        return elapsedMillis <= 0L ? loadedRows : loadedRows * 1000L / elapsedMillis;
+    }
+
+    void mode(Mode mode) {
+        this.mode = mode;
+    }
+
+    void submitted() {
+        this.submittedRows++;
+    }
+
+    void chunkCommitted(long sentRows, long loadedRows) {
+        this.chunks++;
+        this.loadedRows += loadedRows;
+        this.rejectedRows += sentRows - loadedRows;
+        this.elapsedMillis = System.currentTimeMillis() - startMillis;
+    }
+
+    /**
+     * 没有发送到数据库的行
+     */
+    void rejected(String reason) {
+        this.rejectedRows++;
+        rejectSample(reason);
+    }
+
+    void rejectSample(String reason) {
+        if (rejectSamples.size() < MAX_REJECT_SAMPLES) {
+            rejectSamples.add(reason);
+        }
+    }
+
+    public enum Mode {
+        /**
+         * mysql LOAD DATA LOCAL INFILE,数据从内存中生成的流读取
+         */
+        LOAD_DATA,
+        /**
+         * 按方言的bulkInsertSql批量绑定插入,oracle为直接路径写入
+         */
+        BATCH
+    }
+}
@@ -0,0 +1,86 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * 大批量updateByCriteria/deleteByCriteria的分批执行策略
+ * 按主键顺序每批处理chunkSize行,每批一条语句在自己的短事物中提交
+ * 批与批之间按本批耗时*sleepRatio休眠,配置replicaLagProbe后从库延迟超过maxReplicaLagMillis时等待延迟回落
+ * listener在每批提交后回调,保存ChunkProgress.lastPk作为checkpoint,重启时通过startAfter从checkpoint继续
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Builder
+@Getter
+public class ChunkPolicy {
+    /**
+     * 每批处理的最多行数
+     */
+    @Builder.Default
+    private int chunkSize = 1000;
+    /**
+     * 批间休眠时间和本批耗时的比例,1.0即写入时间最多占一半
+     */
+    @Builder.Default
+    private double sleepRatio = 1.0D;
+    @Builder.Default
+    private long minSleepMillis = 0L;
+    @Builder.Default
+    private long maxSleepMillis = 5000L;
+    /**
+     * 从库延迟探测,为null不检查
+     */
+    private ReplicaLagProbe replicaLagProbe;
+    @Builder.Default
+    private long maxReplicaLagMillis = 1000L;
+    /**
+     * 从库延迟超限时重新探测的间隔
+     */
+    @Builder.Default
+    private long lagCheckIntervalMillis = 500L;
+    /**
+     * 从该主键之后开始处理(不含),用于从checkpoint继续
+     */
+    private Serializable startAfter;
+    private ChunkListener listener;
+
+    /**
+     * 每批提交后休眠,并等待从库延迟回落
+     *
+     * @param chunkMillis - 本批耗时
+     * @return - 实际休眠的毫秒数
+     */
+    long throttle(long chunkMillis) throws InterruptedException {
+        long sleepMillis = Math.min(Math.max((long) (chunkMillis * sleepRatio), minSleepMillis), maxSleepMillis);
+        if (sleepMillis > 0L) {
+            Thread.sleep(sleepMillis);
+        }
+        if (replicaLagProbe != null) {
+            while (replicaLagProbe.replicaLagMillis() > maxReplicaLagMillis) {
+                Thread.sleep(lagCheckIntervalMillis);
+                sleepMillis += lagCheckIntervalMillis;
+            }
+        }
+        return sleepMillis;
+    }
+
+    /**
+     * 从库延迟探测,如查询SHOW SLAVE STATUS的Seconds_Behind_Master或心跳表
+     */
+    @FunctionalInterface
+    public interface ReplicaLagProbe {
+        long replicaLagMillis();
+    }
+
+    /**
+     * 分批进度回调,抛出异常会终止后续批次(已提交的批次不回滚)
+     */
+    @FunctionalInterface
+    public interface ChunkListener {
+        void onChunk(ChunkProgress progress);
+    }
+}
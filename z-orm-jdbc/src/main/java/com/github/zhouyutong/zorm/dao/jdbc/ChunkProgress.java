@@ -0,0 +1,54 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * 分批执行的进度,lastPk之前(含)的行都已处理并提交
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Getter
+@ToString(exclude = "startMillis")
+public class ChunkProgress {
+    private int chunks;
+    private long affectedRows;
+    /**
+     * 已提交的最大主键,可作为checkpoint,最后一批没有上界时不变
+     */
+    private Serializable lastPk;
+    private int lastChunkRows;
+    private long lastChunkMillis;
+    private long sleptMillis;
+    private long elapsedMillis;
+    /**
+     * 是否已处理完所有批次
+     */
+    private boolean finished;
+
+    private final long startMillis = System.currentTimeMillis();
+
+    ChunkProgress(Serializable startAfter) {
+        this.lastPk = startAfter;
+    }
+
+    void chunkCommitted(int rows, Serializable upperPk, long chunkMillis) {
+        this.chunks++;
+        this.affectedRows += rows;
+        this.lastChunkRows = rows;
+        this.lastChunkMillis = chunkMillis;
+        if (upperPk == null) {
+            this.finished = true;
+        } else {
+            this.lastPk = upperPk;
+        }
+        this.elapsedMillis = System.currentTimeMillis() - startMillis;
+    }
+
+    void slept(long millis) {
+        this.sleptMillis += millis;
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import com.github.zhouyutong.zorm.dao.jdbc.annotation.Column;
+import com.google.common.collect.Maps;
+import lombok.Getter;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * 一个字段的参数绑定器,在创建EntityMapper时根据字段类型或Column.sqlType确定一次
+ * null按确定的sql类型setNull,避免驱动通过getParameterMetaData()查询参数类型
+ * 值的类型与字段类型一致时直接调用对应的setXxx,否则交给StatementCreatorUtils按sql类型转换
+ * InputStream/Reader类型的字段按setBinaryStream/setCharacterStream绑定,值是SizedInputStream/SizedReader时带上长度
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public final class ColumnBinder {
+    private static final Map<Class<?>, ColumnBinder> TYPE_BINDER_MAP = Maps.newHashMap();
+
+    static {
+        register(String.class, Types.VARCHAR, (ps, i, v) -> ps.setString(i, (String) v));
+        register(Integer.class, Types.INTEGER, (ps, i, v) -> ps.setInt(i, (Integer) v));
+        register(Long.class, Types.BIGINT, (ps, i, v) -> ps.setLong(i, (Long) v));
+        register(Short.class, Types.SMALLINT, (ps, i, v) -> ps.setShort(i, (Short) v));
+        register(Byte.class, Types.TINYINT, (ps, i, v) -> ps.setByte(i, (Byte) v));
+        register(Double.class, Types.DOUBLE, (ps, i, v) -> ps.setDouble(i, (Double) v));
+        register(Float.class, Types.REAL, (ps, i, v) -> ps.setFloat(i, (Float) v));
+        register(Boolean.class, Types.BIT, (ps, i, v) -> ps.setBoolean(i, (Boolean) v));
+        register(BigDecimal.class, Types.DECIMAL, (ps, i, v) -> ps.setBigDecimal(i, (BigDecimal) v));
+        register(Date.class, Types.TIMESTAMP, (ps, i, v) -> ps.setTimestamp(i, new Timestamp(((Date) v).getTime())));
+        register(Timestamp.class, Types.TIMESTAMP, (ps, i, v) -> ps.setTimestamp(i, (Timestamp) v));
+        register(java.sql.Date.class, Types.DATE, (ps, i, v) -> ps.setDate(i, (java.sql.Date) v));
+        register(Time.class, Types.TIME, (ps, i, v) -> ps.setTime(i, (Time) v));
+        register(byte[].class, Types.VARBINARY, (ps, i, v) -> ps.setBytes(i, (byte[]) v));
+    }
+
+    private static final ColumnBinder BINARY_STREAM = new ColumnBinder(InputStream.class, Types.LONGVARBINARY, true, (ps, i, v) -> {
+        if (v instanceof SizedInputStream) {
+            ps.setBinaryStream(i, (InputStream) v, ((SizedInputStream) v).getLength());
+        } else {
+            ps.setBinaryStream(i, (InputStream) v);
+        }
+    });
+    private static final ColumnBinder CHARACTER_STREAM = new ColumnBinder(Reader.class, Types.LONGVARCHAR, true, (ps, i, v) -> {
+        if (v instanceof SizedReader) {
+            ps.setCharacterStream(i, (Reader) v, ((SizedReader) v).getLength());
+        } else {
+            ps.setCharacterStream(i, (Reader) v);
+        }
+    });
+
+    /**
+     * 无法推断类型的字段,行为与原来的TYPE_UNKNOWN绑定一致
+     */
+    static final ColumnBinder UNKNOWN = new ColumnBinder(Object.class, SqlTypeValue.TYPE_UNKNOWN, false, null);
+
+    //值是该类型时才走valueSetter
+    private final Class<?> javaType;
+    @Getter
+    private final int sqlType;
+    //值是该类型的子类时也走valueSetter
+    private final boolean matchSubclass;
+    private final ValueSetter valueSetter;
+
+    private ColumnBinder(Class<?> javaType, int sqlType, boolean matchSubclass, ValueSetter valueSetter) {
+        this.javaType = javaType;
+        this.sqlType = sqlType;
+        this.matchSubclass = matchSubclass;
+        this.valueSetter = valueSetter;
+    }
+
+    /**
+     * 根据字段得到绑定器,Column.sqlType优先于根据字段类型推断的类型
+     *
+     * @param field
+     * @return
+     */
+    static ColumnBinder of(Field field) {
+        ColumnBinder binder = TYPE_BINDER_MAP.get(wrap(field.getType()));
+        if (InputStream.class.isAssignableFrom(field.getType())) {
+            binder = BINARY_STREAM;
+        } else if (Reader.class.isAssignableFrom(field.getType())) {
+            binder = CHARACTER_STREAM;
+        }
+        if (binder == null) {
+            binder = UNKNOWN;
+        }
+        Column columnAnnotation = field.getAnnotation(Column.class);
+        int declaredSqlType = columnAnnotation == null ? SqlTypeValue.TYPE_UNKNOWN : columnAnnotation.sqlType();
+        if (declaredSqlType == SqlTypeValue.TYPE_UNKNOWN || declaredSqlType == binder.sqlType) {
+            return binder;
+        }
+        //显式声明了不同的sql类型,按声明的类型交给StatementCreatorUtils转换
+        return new ColumnBinder(Object.class, declaredSqlType, false, null);
+    }
+
+    /**
+     * InputStream/Reader类型的字段只能流式读写
+     */
+    static boolean isStreamType(Class<?> type) {
+        return InputStream.class.isAssignableFrom(type) || Reader.class.isAssignableFrom(type);
+    }
+
+    /**
+     * 绑定一个参数
+     *
+     * @param ps    -
+     * @param index - 从1开始
+     * @param value - 可以为null
+     * @throws SQLException
+     */
+    public void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value == null) {
+            if (sqlType == SqlTypeValue.TYPE_UNKNOWN) {
+                StatementCreatorUtils.setParameterValue(ps, index, SqlTypeValue.TYPE_UNKNOWN, null);
+            } else {
+                ps.setNull(index, sqlType);
+            }
+        } else if (valueSetter != null && (value.getClass() == javaType || matchSubclass && javaType.isInstance(value))) {
+            valueSetter.set(ps, index, value);
+        } else {
+            StatementCreatorUtils.setParameterValue(ps, index, sqlType, value);
+        }
+    }
+
+    private static void register(Class<?> javaType, int sqlType, ValueSetter valueSetter) {
+        TYPE_BINDER_MAP.put(javaType, new ColumnBinder(javaType, sqlType, false, valueSetter));
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        if (type == int.class) {
+            return Integer.class;
+        } else if (type == long.class) {
+            return Long.class;
+        } else if (type == short.class) {
+            return Short.class;
+        } else if (type == byte.class) {
+            return Byte.class;
+        } else if (type == double.class) {
+            return Double.class;
+        } else if (type == float.class) {
+            return Float.class;
+        } else if (type == boolean.class) {
+            return Boolean.class;
+        }
+        return type;
+    }
+
+    @FunctionalInterface
+    private interface ValueSetter {
+        void set(PreparedStatement ps, int index, Object value) throws SQLException;
+    }
+}
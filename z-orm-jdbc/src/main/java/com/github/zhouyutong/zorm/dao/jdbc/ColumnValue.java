@@ -0,0 +1,72 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import org.springframework.jdbc.core.SqlTypeValue;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 带有字段绑定器的sql参数值
+ * 直接放入传给JdbcTemplate的参数数组,StatementCreatorUtils识别SqlTypeValue后回调setTypeValue完成绑定
+ * 实现equals/hashCode,使包含它的参数列表可以作为合并读请求的key
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public final class ColumnValue implements SqlTypeValue {
+    private final ColumnBinder binder;
+    private final Object value;
+
+    ColumnValue(ColumnBinder binder, Object value) {
+        this.binder = binder;
+        this.value = value;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * 得到原始值,不是ColumnValue时原样返回
+     *
+     * @param value
+     * @return
+     */
+    public static Object unwrap(Object value) {
+        return value instanceof ColumnValue ? ((ColumnValue) value).value : value;
+    }
+
+    void bind(PreparedStatement ps, int index) throws SQLException {
+        binder.bind(ps, index, value);
+    }
+
+    @Override
+    public void setTypeValue(PreparedStatement ps, int paramIndex, int sqlType, String typeName) throws SQLException {
+        binder.bind(ps, paramIndex, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ColumnValue)) {
+            return false;
+        }
+        ColumnValue that = (ColumnValue) o;
+        return binder.getSqlType() == that.binder.getSqlType() && Objects.deepEquals(value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = value instanceof byte[] ? Arrays.hashCode((byte[]) value) : Objects.hashCode(value);
+        return 31 * h + binder.getSqlType();
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(value);
+    }
+}
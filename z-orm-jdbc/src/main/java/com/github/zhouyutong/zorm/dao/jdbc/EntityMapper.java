@@ -3,12 +3,15 @@ package com.github.zhouyutong.zorm.dao.jdbc;
 import com.github.zhouyutong.zorm.annotation.PK;
 import com.github.zhouyutong.zorm.dao.DaoHelper;
 import com.github.zhouyutong.zorm.dao.jdbc.annotation.Column;
+import com.github.zhouyutong.zorm.dao.jdbc.annotation.Version;
 import com.github.zhouyutong.zorm.exception.DaoException;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import lombok.Getter;
 
 import java.lang.reflect.Field;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -22,12 +25,26 @@ import java.util.Set;
 public final class EntityMapper<T> {
     private String entityName;
     private String pkFieldName;
+    private Field pkField;
+    //乐观锁版本字段,没有时为null
+    private String versionFieldName;
+    private Field versionField;
     //属性名到字段名映射
     private Map<String, String> propertyToColumnMapper = Maps.newLinkedHashMap();
     //字段名到属性名映射
     private Map<String, String> columnToPropertyMapper = Maps.newLinkedHashMap();
     //不需要持久化的字段
     private Set<String> notNeedTransientPropertySet = Sets.newHashSet();
+    //属性名到参数绑定器映射
+    private Map<String, ColumnBinder> propertyToBinderMapper = Maps.newHashMap();
+    //属性名到Field映射
+    private Map<String, Field> propertyToFieldMapper = Maps.newHashMap();
+    //延迟加载的属性,包括所有流类型的属性
+    private Set<String> lazyPropertySet = Sets.newLinkedHashSet();
+    //InputStream/Reader类型的属性,只能通过dao.readBinaryStream/readCharacterStream流式读取
+    private Set<String> streamPropertySet = Sets.newHashSet();
+    //默认查询(没有指定fields)的列,不包括延迟加载的列
+    private List<String> defaultSelectColumns = Lists.newArrayList();
 
     public EntityMapper(Class<T> entityClass) {
         this.entityName = entityClass.getCanonicalName();
@@ -48,14 +65,44 @@ public final class EntityMapper<T> {
 
                 if (field.getAnnotation(PK.class) != null) {
                     pkFieldName = propertyName;
+                    pkField = field;
+                }
+                if (field.getAnnotation(Version.class) != null) {
+                    versionFieldName = propertyName;
+                    versionField = field;
                 }
 
                 String columnName = JdbcHelper.getColumnName(field);
                 propertyToColumnMapper.put(propertyName, columnName);
                 columnToPropertyMapper.put(columnName, propertyName);
+                propertyToBinderMapper.put(propertyName, ColumnBinder.of(field));
+                propertyToFieldMapper.put(propertyName, field);
+                if (ColumnBinder.isStreamType(field.getType())) {
+                    streamPropertySet.add(propertyName);
+                }
+                if (columnAnnotation.lazy() || streamPropertySet.contains(propertyName)) {
+                    lazyPropertySet.add(propertyName);
+                } else {
+                    defaultSelectColumns.add(columnName);
+                }
             }
         } catch (Exception e) {
             throw new DaoException("无法创建Entity[" + getEntityName() + "]对应的EntityMapper", e);
         }
+        if (lazyPropertySet.contains(pkFieldName) || lazyPropertySet.contains(versionFieldName)) {
+            throw new DaoException("Entity[" + getEntityName() + "]的主键和乐观锁版本字段不能延迟加载");
+        }
+    }
+
+    /**
+     * 把属性值包装成带绑定器的sql参数,未知的属性原样返回
+     *
+     * @param propertyName
+     * @param value
+     * @return
+     */
+    public Object typedValue(String propertyName, Object value) {
+        ColumnBinder binder = propertyToBinderMapper.get(propertyName);
+        return binder == null ? value : new ColumnValue(binder, value);
     }
 }
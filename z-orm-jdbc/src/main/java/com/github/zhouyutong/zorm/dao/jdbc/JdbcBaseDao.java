@@ -1,40 +1,96 @@
 package com.github.zhouyutong.zorm.dao.jdbc;
 
 import com.github.zhouyutong.zorm.constant.MixedConstant;
+import com.github.zhouyutong.zorm.constant.SymbolConstant;
+import com.github.zhouyutong.zorm.dao.DaoExecutors;
 import com.github.zhouyutong.zorm.dao.DaoHelper;
 import com.github.zhouyutong.zorm.dao.DatabaseRouter;
+import com.github.zhouyutong.zorm.dao.DirtyTracker;
 import com.github.zhouyutong.zorm.dao.IBaseDao;
+import com.github.zhouyutong.zorm.dao.IdBatchLoader;
+import com.github.zhouyutong.zorm.dao.SingleFlight;
+import com.github.zhouyutong.zorm.dao.bloom.BloomFilterSettings;
+import com.github.zhouyutong.zorm.dao.bloom.PkBloomIndex;
+import com.github.zhouyutong.zorm.dao.export.ExportFormat;
+import com.github.zhouyutong.zorm.dao.export.ExportWriter;
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.Dialect;
 import com.github.zhouyutong.zorm.dao.jdbc.enums.DialectEnum;
+import com.github.zhouyutong.zorm.dao.jdbc.transaction.TransactionContext;
+import com.github.zhouyutong.zorm.dao.metrics.DaoOperation;
+import com.github.zhouyutong.zorm.dao.metrics.DaoOperationMetrics;
+import com.github.zhouyutong.zorm.dao.slowlog.SlowQueryLog;
+import com.github.zhouyutong.zorm.dao.slowlog.SlowQueryStat;
 import com.github.zhouyutong.zorm.entity.IdEntity;
 import com.github.zhouyutong.zorm.exception.DaoException;
 import com.github.zhouyutong.zorm.exception.DaoExceptionTranslator;
+import com.github.zhouyutong.zorm.exception.DaoMethodParameterException;
+import com.github.zhouyutong.zorm.exception.OptimisticLockException;
 import com.github.zhouyutong.zorm.exception.UniqueConstraintException;
 import com.github.zhouyutong.zorm.query.*;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.collect.Sets;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCreator;
-import org.springframework.jdbc.core.SqlTypeValue;
-import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapperResultSetExtractor;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static com.github.zhouyutong.zorm.dao.DaoHelper.*;
 import static com.github.zhouyutong.zorm.dao.jdbc.JdbcHelper.*;
@@ -47,11 +103,23 @@ import static com.github.zhouyutong.zorm.dao.jdbc.JdbcHelper.*;
  */
 @Slf4j
 public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDao<T> {
+    private static final int PAGE_TOTAL_CACHE_SIZE = 10000;
+    private static final int SQL_FINGERPRINT_CACHE_SIZE = 1000;
 
     private Class<T> entityClass;
     private EntityMapper<T> entityMapper;
     private JdbcSettings jdbcSettings;
+    private Dialect dialect;
     private DatabaseRouter router;
+    private PkBloomIndex pkBloomIndex;  //主键布隆过滤器,为null表示未开启
+    private final SingleFlight<List<Object>, Object> readSingleFlight = new SingleFlight<List<Object>, Object>();
+    private IdBatchLoader<T> idBatchLoader;    //findOneById自动微批,为null表示未开启
+    private DirtyTracker dirtyTracker;  //脏字段检查,为null表示未开启
+    private Cache<List<Object>, Long> pageTotalCache;    //findPage的总数缓存,key为count语句和参数,为null表示未开启
+    private final Cache<String, String> sqlFingerprintCache = CacheBuilder.newBuilder().maximumSize(SQL_FINGERPRINT_CACHE_SIZE).build();    //生成的sql到指纹的缓存
+    private Set<String> indexNames;    //表上的索引名,用于校验Query.hint,为null表示不校验
+    private Set<String> indexLeadingColumns;    //表上各索引的第一列,用于执行计划检查,为null表示不检查
+    private DaoOperationMetrics[] operationMetrics;    //按DaoOperation.ordinal()下标
     private ApplicationContext applicationContext;
 
     @Override
@@ -63,6 +131,9 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
     public boolean exists(Serializable id) throws DaoException {
         checkArgumentId(id);
 
+        if (pkBloomIndex != null && !pkBloomIndex.mightContain(id)) {
+            return false;
+        }
         return this.exists(Criteria.where(entityMapper.getPkFieldName(), id));
     }
 
@@ -79,6 +150,8 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
 
         List<Object> valueList = Lists.newArrayList();
         StringBuilder sql = new StringBuilder();
+        final JdbcTemplate jdbcTemplate = (JdbcTemplate) router.readRoute();
+        long start = System.nanoTime();
 
         try {
             sql.append(SELECT_COUNT());
@@ -88,9 +161,13 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
             if (log.isDebugEnabled()) {
                 log.debug(formatSql(sql.toString(), valueList));
             }
+            checkPlan(jdbcTemplate, sql, valueList, criteria);
 
-            return ((JdbcTemplate) router.readRoute()).queryForObject(sql.toString(), valueList.toArray(), Long.class);
+            long count = coalesceRead(sql.toString(), valueList, () -> jdbcTemplate.queryForObject(sql.toString(), valueList.toArray(), Long.class));
+            recordMetrics(DaoOperation.COUNT_BY_CRITERIA, start, MixedConstant.INT_1, jdbcTemplate, sql);
+            return count;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.COUNT_BY_CRITERIA, start, e, jdbcTemplate, sql);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -98,6 +175,8 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
     @Override
     public long countAll() throws DaoException {
         StringBuilder sql = new StringBuilder();
+        final JdbcTemplate jdbcTemplate = (JdbcTemplate) router.readRoute();
+        long start = System.nanoTime();
 
         try {
             sql.append(SELECT_COUNT());
@@ -106,8 +185,11 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
             if (log.isDebugEnabled()) {
                 log.debug(formatSql(sql.toString()));
             }
-            return ((JdbcTemplate) router.readRoute()).queryForObject(sql.toString(), Long.class);
+            long count = coalesceRead(sql.toString(), null, () -> jdbcTemplate.queryForObject(sql.toString(), Long.class));
+            recordMetrics(DaoOperation.COUNT_ALL, start, MixedConstant.INT_1, jdbcTemplate, sql);
+            return count;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.COUNT_ALL, start, e, jdbcTemplate, sql);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -117,18 +199,24 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
         checkArgument(sql);
 
         List<Object> valueList = MapUtils.isEmpty(param) ? null : Lists.newArrayList(param.values());
+        final JdbcTemplate jdbcTemplate = (JdbcTemplate) router.readRoute();
+        long start = System.nanoTime();
         try {
             if (log.isDebugEnabled()) {
                 log.debug(formatSql(sql, valueList));
             }
 
-            if (CollectionUtils.isEmpty(valueList)) {
-                return ((JdbcTemplate) router.readRoute()).queryForObject(sql, Long.class);
-            } else {
-                return ((JdbcTemplate) router.readRoute()).queryForObject(sql, valueList.toArray(), Long.class);
-            }
-
+            long count = coalesceRead(sql, valueList, () -> {
+                if (CollectionUtils.isEmpty(valueList)) {
+                    return jdbcTemplate.queryForObject(sql, Long.class);
+                } else {
+                    return jdbcTemplate.queryForObject(sql, valueList.toArray(), Long.class);
+                }
+            });
+            recordMetrics(DaoOperation.COUNT_BY_SQL, start, MixedConstant.INT_1, jdbcTemplate, sql);
+            return count;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.COUNT_BY_SQL, start, e, jdbcTemplate, sql);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -137,6 +225,12 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
     public T findOneById(Serializable id) throws DaoException {
         checkArgumentId(id);
 
+        if (pkBloomIndex != null && !pkBloomIndex.mightContain(id)) {
+            return null;
+        }
+        if (idBatchLoader != null && !this.inTransaction()) {
+            return idBatchLoader.load(id);
+        }
         return this.findOne(Criteria.where(entityMapper.getPkFieldName(), id));
     }
 
@@ -161,38 +255,158 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
     public List<T> findListByIds(List<Serializable> ids) throws DaoException {
         checkArgumentIds(ids);
 
-        return this.findList(Criteria.where(entityMapper.getPkFieldName(), CriteriaOperators.IN, ids));
+        LinkedHashMap<Serializable, T> entityMap = this.findMapByIds(ids);
+        return entityMap.isEmpty() ? null : Lists.newArrayList(entityMap.values());
+    }
+
+    @Override
+    public LinkedHashMap<Serializable, T> findMapByIds(List<Serializable> ids) throws DaoException {
+        checkArgumentIds(ids);
+
+        //按归一化的主键去重并保持输入顺序,数据库返回的主键类型可能和传入的不同
+        LinkedHashMap<String, Serializable> idMap = Maps.newLinkedHashMap();
+        for (Serializable id : ids) {
+            if (pkBloomIndex == null || pkBloomIndex.mightContain(id)) {
+                idMap.putIfAbsent(this.pkKey(id), id);
+            }
+        }
+        LinkedHashMap<Serializable, T> entityMap = Maps.newLinkedHashMap();
+        if (idMap.isEmpty()) {
+            return entityMap;
+        }
+
+        List<Serializable> idsToGet = Lists.newArrayList(idMap.values());
+        List<T> entityList;
+        if (jdbcSettings.getIdTempTableThreshold() > 0 && idsToGet.size() > jdbcSettings.getIdTempTableThreshold()
+                && DialectEnum.MYSQL.equals(dialect.getDialectEnum())) {
+            entityList = this.findListByIdsWithTempTable(idsToGet);
+        } else {
+            entityList = this.findListByIdsInChunks(idsToGet);
+        }
+
+        LinkedHashMap<String, T> foundMap = Maps.newLinkedHashMap();
+        for (T entity : entityList) {
+            foundMap.put(this.pkKey(DaoHelper.getColumnValue(entityMapper.getPkField(), entity)), entity);
+        }
+        for (Map.Entry<String, Serializable> entry : idMap.entrySet()) {
+            T entity = foundMap.remove(entry.getKey());
+            if (entity != null) {
+                entityMap.put(entry.getValue(), entity);
+            }
+        }
+        //数据库按排序规则匹配到但主键值和传入的不相同的行(大小写不敏感、CHAR补空格等),以数据库的主键为key按返回顺序追加,不丢弃
+        for (T entity : foundMap.values()) {
+            entityMap.put((Serializable) DaoHelper.getColumnValue(entityMapper.getPkField(), entity), entity);
+        }
+        return entityMap;
+    }
+
+    /**
+     * 主键匹配用的key,数值主键按数值归一化("007"、7、7.0匹配同一行),其他按toString()
+     *
+     * @param pkValue
+     * @return
+     */
+    private String pkKey(Object pkValue) {
+        if (pkValue instanceof Number || (pkValue instanceof String && isNumericPk())) {
+            try {
+                return new BigDecimal(pkValue.toString().trim()).stripTrailingZeros().toPlainString();
+            } catch (NumberFormatException e) {
+                return pkValue.toString();
+            }
+        }
+        return pkValue.toString();
+    }
+
+    private boolean isNumericPk() {
+        Class<?> pkType = ClassUtils.primitiveToWrapper(entityMapper.getPkField().getType());
+        return Number.class.isAssignableFrom(pkType);
+    }
+
+    /**
+     * findOneById微批的批量查询,返回的key为传入主键的toString()
+     * 数值主键按数值精确对应;其他主键由数据库排序规则决定是否匹配(大小写不敏感、CHAR补空格等),无法对应的主键逐个按主键查询,
+     * 保证和不开启微批的结果一致,代价不超过不开启微批时的单个查询
+     *
+     * @param ids
+     * @return
+     */
+    private Map<String, T> batchFindByIds(List<Serializable> ids) {
+        Map<String, T> foundMap = Maps.newHashMap();
+        for (T entity : this.findMapByIds(ids).values()) {
+            foundMap.put(this.pkKey(DaoHelper.getColumnValue(entityMapper.getPkField(), entity)), entity);
+        }
+        Map<String, T> entityMap = Maps.newHashMapWithExpectedSize(ids.size());
+        List<Serializable> unmatchedIds = Lists.newArrayList();
+        Set<String> matchedKeySet = Sets.newHashSet();
+        for (Serializable id : ids) {
+            String key = this.pkKey(id);
+            T entity = foundMap.get(key);
+            if (entity != null) {
+                entityMap.put(id.toString(), entity);
+                matchedKeySet.add(key);
+            } else {
+                unmatchedIds.add(id);
+            }
+        }
+        if (!unmatchedIds.isEmpty() && (!this.isNumericPk() || matchedKeySet.size() < foundMap.size())) {
+            for (Serializable id : unmatchedIds) {
+                T entity = this.findOne(Criteria.where(entityMapper.getPkFieldName(), id));
+                if (entity != null) {
+                    entityMap.put(id.toString(), entity);
+                }
+            }
+        }
+        return entityMap;
     }
 
     @Override
     public List<T> findListByQuery(Query query) throws DaoException {
         checkArgumentQuery(query);
+        checkArgumentHint(query);
 
         List<Object> valueList = Lists.newArrayList();
         StringBuilder sql = new StringBuilder();
+        final JdbcTemplate jdbcTemplate = (JdbcTemplate) router.readRoute();
+        long start = System.nanoTime();
 
         try {
-            sql.append(SELECT(query, entityMapper));
-            sql.append(FROM(entityClass));
+            //深分页时子查询只取一页的主键,避免读出再丢弃offset行的整行数据
+            boolean deferredJoin = jdbcSettings.getDeferredJoinOffsetThreshold() > 0 && query.getOffset() >= jdbcSettings.getDeferredJoinOffsetThreshold()
+                    && query.getLimit() > MixedConstant.INT_0 && CollectionUtils.isEmpty(query.getGroupBys());
+            if (deferredJoin) {
+                sql.append(SELECT_PK(entityMapper, HINT_COMMENT(entityClass, query, dialect)));
+            } else {
+                sql.append(SELECT(query, entityMapper, HINT_COMMENT(entityClass, query, dialect)));
+            }
+            sql.append(FROM(entityClass, query, dialect));
             sql.append(WHERE(query.getCriteria(), valueList, entityMapper));
             sql.append(GROUP_BY(query.getGroupBys(), entityMapper));
             sql.append(ORDER_BY(query.getOrderBys(), entityMapper));
-            sql.append(LIMIT(query.getOffset(), query.getLimit(), jdbcSettings.getDialectEnum(), sql));
+            sql.append(LIMIT(query.getOffset(), query.getLimit(), dialect, sql));
+            if (deferredJoin) {
+                String pkPageSql = sql.toString();
+                sql.setLength(MixedConstant.INT_0);
+                sql.append(DEFERRED_JOIN(query, entityMapper, entityClass, pkPageSql));
+            }
 
             if (log.isDebugEnabled()) {
                 log.debug(formatSql(sql.toString(), valueList));
             }
+            checkPlan(jdbcTemplate, sql, valueList, query.getCriteria());
 
-            List<Map<String, Object>> list = ((JdbcTemplate) router.readRoute()).queryForList(sql.toString(), valueList.toArray());
+            List<Map<String, Object>> list = coalesceRead(sql.toString(), valueList, () -> jdbcTemplate.queryForList(sql.toString(), valueList.toArray()));
+            recordMetrics(DaoOperation.FIND_LIST_BY_QUERY, start, list == null ? MixedConstant.INT_0 : list.size(), jdbcTemplate, sql);
             if (list == null || list.isEmpty()) {
                 return null;
             }
             List<T> entityList = Lists.newArrayList();
             for (Map<String, Object> map : list) {
-                entityList.add(map2Entity(map, entityMapper, entityClass));
+                entityList.add(track(map2Entity(map, entityMapper, entityClass)));
             }
             return entityList;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.FIND_LIST_BY_QUERY, start, e, jdbcTemplate, sql);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -208,32 +422,104 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
         return this.findListByQuery(query);
     }
 
+    /**
+     * 数据和总数在工作线程中并发查询,各自路由到一个读库,事务中在当前线程顺序执行
+     * 开启pageCountSkipping时第一页先查数据,不满一页时不再count
+     * 开启pageTotalCacheMillis时相同条件的总数在有效期内复用
+     */
+    @Override
+    public Page<T> findPage(Query query, Pageable pageable) throws DaoException {
+        checkArgumentQuery(query);
+        checkArgumentPageable(pageable);
+        if (CollectionUtils.isNotEmpty(query.getGroupBys())) {
+            throw new DaoMethodParameterException("Param query for findPage must not have groupBys");
+        }
+
+        int limit = pageable.getPageSize();
+        int offset = (pageable.getPageNumber() - MixedConstant.INT_1) * limit;
+        query.offset(offset).limit(limit);
+        final Criteria criteria = query.getCriteria();
+        final List<Object> totalKey = pageTotalCache == null ? null : this.pageTotalKey(criteria);
+
+        List<T> content;
+        Long total = totalKey == null ? null : pageTotalCache.getIfPresent(totalKey);
+        if (total != null) {
+            content = this.findListByQuery(query);
+        } else if (jdbcSettings.isPageCountSkipping() && offset == MixedConstant.INT_0) {
+            content = this.findListByQuery(query);
+            int size = content == null ? MixedConstant.INT_0 : content.size();
+            total = size < limit ? cachePageTotal(totalKey, size) : this.countForPage(criteria, totalKey);
+        } else if (this.inTransaction()) {
+            content = this.findListByQuery(query);
+            total = this.countForPage(criteria, totalKey);
+        } else {
+            Future<Long> totalFuture = DaoExecutors.worker().submit(() -> this.countForPage(criteria, totalKey));
+            content = this.findListByQuery(query);
+            total = DaoExecutors.await(totalFuture);
+        }
+        return new Page<T>(content, total, pageable.getPageNumber(), limit);
+    }
+
+    private long countForPage(Criteria criteria, List<Object> totalKey) {
+        long total = criteria == null ? this.countAll() : this.countByCriteria(criteria);
+        return cachePageTotal(totalKey, total);
+    }
+
+    private long cachePageTotal(List<Object> totalKey, long total) {
+        if (totalKey != null) {
+            pageTotalCache.put(totalKey, total);
+        }
+        return total;
+    }
+
+    /**
+     * 总数缓存的key,与coalesceRead一致由count语句和绑定参数组成,参数保留原始类型和精度
+     *
+     * @param criteria
+     * @return
+     */
+    private List<Object> pageTotalKey(Criteria criteria) {
+        List<Object> valueList = Lists.newArrayList();
+        StringBuilder sql = new StringBuilder();
+        sql.append(SELECT_COUNT());
+        sql.append(FROM(entityClass));
+        if (criteria != null) {
+            sql.append(WHERE(criteria, valueList, entityMapper));
+        }
+        return Lists.newArrayList(sql.toString(), valueList);
+    }
+
     @Override
     public List<T> findListBySql(String sql, LinkedHashMap<String, Object> param) throws DaoException {
         checkArgument(sql);
         List<Object> valueList = MapUtils.isEmpty(param) ? null : Lists.newArrayList(param.values());
+        final JdbcTemplate jdbcTemplate = (JdbcTemplate) router.readRoute();
+        long start = System.nanoTime();
 
         try {
             if (log.isDebugEnabled()) {
                 log.debug(formatSql(sql, valueList));
             }
 
-            List<Map<String, Object>> list;
-            if (CollectionUtils.isEmpty(valueList)) {
-                list = ((JdbcTemplate) router.readRoute()).queryForList(sql);
-            } else {
-                list = ((JdbcTemplate) router.readRoute()).queryForList(sql, valueList.toArray());
-            }
+            List<Map<String, Object>> list = coalesceRead(sql, valueList, () -> {
+                if (CollectionUtils.isEmpty(valueList)) {
+                    return jdbcTemplate.queryForList(sql);
+                } else {
+                    return jdbcTemplate.queryForList(sql, valueList.toArray());
+                }
+            });
+            recordMetrics(DaoOperation.FIND_LIST_BY_SQL, start, list == null ? MixedConstant.INT_0 : list.size(), jdbcTemplate, sql);
 
             if (list == null || list.isEmpty()) {
                 return null;
             }
             List<T> entityList = Lists.newArrayList();
             for (Map<String, Object> map : list) {
-                entityList.add(map2Entity(map, entityMapper, entityClass));
+                entityList.add(track(map2Entity(map, entityMapper, entityClass)));
             }
             return entityList;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.FIND_LIST_BY_SQL, start, e, jdbcTemplate, sql);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -243,65 +529,632 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
         checkArgumentEntity(entity);
 
         final IdEntity idEntity = (IdEntity) entity;
+        final Field versionField = entityMapper.getVersionField();
+        if (versionField != null && DaoHelper.getColumnValue(versionField, idEntity) == null) {  //版本从0开始
+            Object initVersion = Long.class.equals(versionField.getType()) ? (Object) MixedConstant.LONG_0 : (Object) MixedConstant.INT_0;
+            DaoHelper.setColumnValue(versionField, idEntity, initVersion);
+        }
         final Field pkField = DaoHelper.getPkField(idEntity);
         final Object pkValue = DaoHelper.getColumnValue(pkField, idEntity);
         final List<Object> valueList = Lists.newArrayList();
+        final String[] insertSql = new String[MixedConstant.INT_1];    //insert语句在创建PreparedStatement时才生成
+        final boolean generatedKey = !DaoHelper.hasSetPkValue(pkValue) && useGeneratedKey(entityClass, dialect);
+        final JdbcTemplate jdbcTemplate = (JdbcTemplate) router.writeRoute();
+        long start = System.nanoTime();
 
         try {
             PreparedStatementCreator psc = connection -> {
-                String insertSqlToUse = INSERT(idEntity, valueList, entityMapper, entityClass, jdbcSettings.getDialectEnum(), connection);
+                String insertSqlToUse = INSERT(idEntity, valueList, entityMapper, entityClass, dialect, connection);
+                insertSql[MixedConstant.INT_0] = insertSqlToUse;
                 PreparedStatement ps;
-                if (DaoHelper.hasSetPkValue(pkValue)) {
-                    ps = connection.prepareStatement(insertSqlToUse);
+                if (generatedKey) {
+                    ps = connection.prepareStatement(insertSqlToUse, new String[]{entityMapper.getPropertyToColumnMapper().get(entityMapper.getPkFieldName())});
                 } else {
-                    ps = connection.prepareStatement(insertSqlToUse, new String[]{entityMapper.getPkFieldName()});
+                    ps = connection.prepareStatement(insertSqlToUse);
                 }
 
                 int i = MixedConstant.INT_0;
                 for (Object value : valueList) {
-                    StatementCreatorUtils.setParameterValue(ps, ++i, SqlTypeValue.TYPE_UNKNOWN, value);
+                    setParameterValue(ps, ++i, value);
                 }
                 return ps;
             };
 
             int n;
-            if (DaoHelper.hasSetPkValue(pkValue) || DialectEnum.ORACLE.equals(jdbcSettings.getDialectEnum())) {//KeyHolder不支持oracle
-                n = ((JdbcTemplate) router.writeRoute()).update(psc);
-            } else {
+            if (generatedKey) {
                 KeyHolder keyHolder = new GeneratedKeyHolder();
-                n = ((JdbcTemplate) router.writeRoute()).update(psc, keyHolder);
+                n = jdbcTemplate.update(psc, keyHolder);
                 DaoHelper.setColumnValue(pkField, idEntity, keyHolder.getKey());
+            } else {
+                n = jdbcTemplate.update(psc);
+            }
+            recordMetrics(DaoOperation.INSERT, start, n, jdbcTemplate, insertSql[MixedConstant.INT_0]);
+            track(entity);
+            if (pkBloomIndex != null) {
+                putPk(DaoHelper.getPkValue(idEntity));
             }
             return n;
         } catch (DuplicateKeyException e) { //唯一约束或主键冲突
+            recordErrorMetrics(DaoOperation.INSERT, start, e, jdbcTemplate, insertSql[MixedConstant.INT_0]);
             throw new UniqueConstraintException(e.getCause().getLocalizedMessage(), e);
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.INSERT, start, e, jdbcTemplate, insertSql[MixedConstant.INT_0]);
+            throw DaoExceptionTranslator.translate(e);
+        }
+    }
+
+    /**
+     * 按主键存在则更新所有字段、不存在则插入,由方言生成对应的语句(ON DUPLICATE KEY UPDATE、MERGE、ON CONFLICT)
+     * 主键必须已赋值,带乐观锁版本字段的entity不支持
+     *
+     * @param entity
+     * @return - 影响行数,mysql更新时为2、值没有变化时为0
+     * @throws DaoException
+     */
+    public int upsert(T entity) throws DaoException {
+        checkArgumentEntity(entity);
+        final IdEntity idEntity = (IdEntity) entity;
+        if (!DaoHelper.hasSetPkValue(DaoHelper.getPkValue(idEntity))) {
+            throw new DaoMethodParameterException("Param entity pk must be set for upsert");
+        }
+        if (entityMapper.getVersionField() != null) {
+            throw new DaoMethodParameterException("entity[" + entityClass.getSimpleName() + "]带乐观锁版本字段,不支持upsert");
+        }
+
+        List<Object> valueList = Lists.newArrayList();
+        String sql = null;
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) router.writeRoute();
+        long start = System.nanoTime();
+
+        try {
+            sql = UPSERT(idEntity, valueList, entityMapper, entityClass, dialect);
+
+            if (log.isDebugEnabled()) {
+                log.debug(formatSql(sql, valueList));
+            }
+            int n = jdbcTemplate.update(sql, valueList.toArray());
+            recordMetrics(DaoOperation.UPSERT, start, n, jdbcTemplate, sql);
+            track(entity);
+            if (pkBloomIndex != null) {
+                putPk(DaoHelper.getPkValue(idEntity));
+            }
+            return n;
+        } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.UPSERT, start, e, jdbcTemplate, sql);
+            throw DaoExceptionTranslator.translate(e);
+        }
+    }
+
+    /**
+     * 大批量导入,见bulkInsert(Iterator),结束后关闭stream
+     */
+    public BulkLoadStats bulkInsert(Stream<T> entities) throws DaoException {
+        if (entities == null) {
+            throw new DaoMethodParameterException("Param entities must be not null");
+        }
+        try {
+            return this.bulkInsert(entities.iterator());
+        } finally {
+            entities.close();
+        }
+    }
+
+    /**
+     * 大批量导入,entity边读边写,不会全部读入内存
+     * 方言支持LOAD DATA且是mysql驱动时通过LOAD DATA LOCAL INFILE从内存中生成的流导入,每条语句bulkLoadChunkSize行
+     * 否则按方言的bulkInsertSql批量绑定插入(oracle为APPEND_VALUES直接路径写入),每bulkLoadChunkSize行提交一次,
+     * 一批失败时回滚后逐行重试,失败的行计入拒绝
+     * 主键要么都已赋值,要么都由数据库自增生成(不回写entity),和第一个entity不一致的行被拒绝;不支持sequence生成主键和流类型的属性
+     * 分批提交,不能在事物中调用,中途失败时已提交的批次不回滚
+     *
+     * @param entities - 需要导入的entity
+     * @return - 导入统计,包括写入行数、拒绝行数和吞吐
+     * @throws DaoException
+     */
+    public BulkLoadStats bulkInsert(Iterator<T> entities) throws DaoException {
+        if (entities == null) {
+            throw new DaoMethodParameterException("Param entities must be not null");
+        }
+        if (this.inTransaction()) {
+            throw new DaoException("方法bulkInsert分批提交,不能处于事物中");
+        }
+        if (!entityMapper.getStreamPropertySet().isEmpty()) {
+            throw new DaoMethodParameterException("entity[" + entityClass.getSimpleName() + "]有流类型的属性,不支持bulkInsert");
+        }
+
+        BulkLoadStats stats = new BulkLoadStats();
+        PeekingIterator<T> peekingIterator = Iterators.peekingIterator(entities);
+        while (peekingIterator.hasNext() && peekingIterator.peek() == null) {
+            peekingIterator.next();
+            stats.submitted();
+            stats.rejected("entity为null");
+        }
+        if (!peekingIterator.hasNext()) {
+            return stats;
+        }
+        final boolean withPk = DaoHelper.hasSetPkValue(DaoHelper.getPkValue((IdEntity) peekingIterator.peek()));
+        if (!withPk && !useGeneratedKey(entityClass, dialect)) {
+            throw new DaoMethodParameterException("bulkInsert时主键必须已赋值或由数据库自增生成");
+        }
+
+        final List<String> propertyList = Lists.newArrayList();
+        final List<String> columnList = Lists.newArrayList();
+        for (Map.Entry<String, String> entry : entityMapper.getPropertyToColumnMapper().entrySet()) {
+            String propertyName = entry.getKey();
+            if (entityMapper.getNotNeedTransientPropertySet().contains(propertyName) || (!withPk && propertyName.equals(entityMapper.getPkFieldName()))) {
+                continue;
+            }
+            propertyList.add(propertyName);
+            columnList.add(entry.getValue());
+        }
+
+        //行数据只在读到时才从entity取出
+        final Iterator<Object[]> rows = new AbstractIterator<Object[]>() {
+            @Override
+            protected Object[] computeNext() {
+                while (peekingIterator.hasNext()) {
+                    T entity = peekingIterator.next();
+                    stats.submitted();
+                    if (entity == null) {
+                        stats.rejected("entity为null");
+                        continue;
+                    }
+                    Serializable pkValue = DaoHelper.getPkValue((IdEntity) entity);
+                    if (DaoHelper.hasSetPkValue(pkValue) != withPk) {
+                        stats.rejected("第" + stats.getSubmittedRows() + "个entity主键" + (withPk ? "没有赋值" : "已赋值") + ",和第一个entity不一致");
+                        continue;
+                    }
+                    return bulkRow(entity, propertyList);
+                }
+                return endOfData();
+            }
+        };
+
+        String tableName = getTableName(entityClass);
+        final String loadDataSql = dialect.loadDataSql(tableName, columnList);
+        final String bulkInsertSql = dialect.bulkInsertSql(tableName, columnList);
+        final int chunkSize = Math.max(jdbcSettings.getBulkLoadChunkSize(), MixedConstant.INT_1);
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) router.writeRoute();
+        long start = System.nanoTime();
+        if (pkBloomIndex != null) {
+            pkBloomIndex.beginUntrackedWrite();
+        }
+
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (loadDataSql != null) {
+                    loadData(connection, loadDataSql, rows, chunkSize, stats);
+                }
+                if (rows.hasNext()) {
+                    batchInsert(connection, bulkInsertSql, rows, chunkSize, stats);
+                }
+                return null;
+            });
+            log.info("bulkInsert entity[" + entityClass.getSimpleName() + "] finished, " + stats);
+            recordMetrics(DaoOperation.BULK_INSERT, start, stats.getLoadedRows(), jdbcTemplate, stats.getMode() == BulkLoadStats.Mode.LOAD_DATA ? loadDataSql : bulkInsertSql);
+        } catch (RuntimeException e) {
+            log.warn("bulkInsert entity[" + entityClass.getSimpleName() + "] failed, committed " + stats);
+            recordErrorMetrics(DaoOperation.BULK_INSERT, start, e, jdbcTemplate, stats.getMode() == BulkLoadStats.Mode.LOAD_DATA ? loadDataSql : bulkInsertSql);
+            throw DaoExceptionTranslator.translate(e);
+        } finally {
+            //自增主键无法逐个加入布隆过滤器,按块提交时提交前开始的重建也会漏掉,导入期间不做否定判断,结束后重建
+            if (pkBloomIndex != null) {
+                pkBloomIndex.endUntrackedWrite();
+                pkBloomIndex.submitRebuild();
+            }
+        }
+        return stats;
+    }
+
+    private Object[] bulkRow(T entity, List<String> propertyList) {
+        Field versionField = entityMapper.getVersionField();
+        if (versionField != null && DaoHelper.getColumnValue(versionField, entity) == null) {  //版本从0开始
+            Object initVersion = Long.class.equals(versionField.getType()) ? (Object) MixedConstant.LONG_0 : (Object) MixedConstant.INT_0;
+            DaoHelper.setColumnValue(versionField, entity, initVersion);
+        }
+        Object[] values = new Object[propertyList.size()];
+        for (int i = MixedConstant.INT_0; i < values.length; i++) {
+            String propertyName = propertyList.get(i);
+            values[i] = entityMapper.typedValue(propertyName, DaoHelper.getColumnValue(propertyName, entity));
+        }
+        return values;
+    }
+
+    /**
+     * 每条LOAD DATA从一个新的流读取chunkSize行,LOCAL导入时被忽略的行数即影响行数之差
+     * 驱动不支持设置数据流时直接返回,此时还没有读取任何行
+     */
+    private void loadData(Connection connection, String sql, Iterator<Object[]> rows, int chunkSize, BulkLoadStats stats) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            while (rows.hasNext()) {
+                BulkLoadInputStream inputStream = new BulkLoadInputStream(rows, chunkSize);
+                if (!setLocalInfileInputStream(statement, inputStream)) {
+                    return;
+                }
+                stats.mode(BulkLoadStats.Mode.LOAD_DATA);
+                int n = statement.executeUpdate(sql);
+                for (SQLWarning warning = statement.getWarnings(); warning != null; warning = warning.getNextWarning()) {
+                    stats.rejectSample(warning.getMessage());
+                }
+                statement.clearWarnings();
+                stats.chunkCommitted(inputStream.getRowCount(), n);
+                if (log.isDebugEnabled()) {
+                    log.debug("bulkInsert entity[" + entityClass.getSimpleName() + "] " + stats);
+                }
+            }
+        }
+    }
+
+    private void batchInsert(Connection connection, String sql, Iterator<Object[]> rows, int chunkSize, BulkLoadStats stats) throws SQLException {
+        stats.mode(BulkLoadStats.Mode.BATCH);
+        //直接路径写入一个事务中每张表只能执行一次,整块作为一次批量绑定执行后立即提交,否则第二次执行报ORA-12838
+        int batchSize = dialect.directPathBulkInsert() ? chunkSize : Math.min(dialect.maxBatchSize(), chunkSize);
+        List<Object[]> chunk = Lists.newArrayListWithCapacity(chunkSize);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            while (rows.hasNext()) {
+                chunk.clear();
+                while (chunk.size() < chunkSize && rows.hasNext()) {
+                    chunk.add(rows.next());
+                }
+                int loaded;
+                try {
+                    int pending = MixedConstant.INT_0;
+                    for (Object[] row : chunk) {
+                        bindRow(ps, row);
+                        ps.addBatch();
+                        if (++pending == batchSize) {
+                            ps.executeBatch();
+                            pending = MixedConstant.INT_0;
+                        }
+                    }
+                    if (pending > MixedConstant.INT_0) {
+                        ps.executeBatch();
+                    }
+                    connection.commit();
+                    loaded = chunk.size();
+                } catch (SQLException e) {
+                    //直接路径写入回滚后才能再次写入该表,逐行重试时每行单独提交
+                    connection.rollback();
+                    ps.clearBatch();
+                    loaded = retryRows(connection, ps, chunk, stats);
+                }
+                stats.chunkCommitted(chunk.size(), loaded);
+                if (log.isDebugEnabled()) {
+                    log.debug("bulkInsert entity[" + entityClass.getSimpleName() + "] " + stats);
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private int retryRows(Connection connection, PreparedStatement ps, List<Object[]> chunk, BulkLoadStats stats) throws SQLException {
+        int loaded = MixedConstant.INT_0;
+        for (Object[] row : chunk) {
+            try {
+                bindRow(ps, row);
+                ps.executeUpdate();
+                connection.commit();
+                loaded++;
+            } catch (SQLException e) {
+                connection.rollback();
+                stats.rejectSample(e.getMessage());
+            }
+        }
+        return loaded;
+    }
+
+    private static void bindRow(PreparedStatement ps, Object[] row) throws SQLException {
+        for (int i = MixedConstant.INT_0; i < row.length; i++) {
+            setParameterValue(ps, i + MixedConstant.INT_1, row[i]);
+        }
+    }
+
+    /**
+     * 按主键批量加载entity的属性,用于默认查询不包含的延迟加载列
+     * 主键按IN列表分批查询,加载到的值写回传入的entity,数据库中已不存在的entity不变
+     *
+     * @param entityList    - 需要加载的entity,主键必须已赋值
+     * @param propertyNames - 需要加载的属性,为空时加载所有延迟加载的属性
+     * @throws DaoException
+     */
+    public void load(List<T> entityList, String... propertyNames) throws DaoException {
+        if (CollectionUtils.isEmpty(entityList)) {
+            throw new DaoMethodParameterException("Param entityList must be not empty");
+        }
+        List<String> propertyList;
+        if (ArrayUtils.isEmpty(propertyNames)) {
+            propertyList = Lists.newArrayList(entityMapper.getLazyPropertySet());
+            propertyList.removeAll(entityMapper.getStreamPropertySet());
+        } else {
+            propertyList = Arrays.asList(propertyNames);
+        }
+        if (propertyList.isEmpty()) {
+            return;
+        }
+        for (String propertyName : propertyList) {
+            if (!entityMapper.getPropertyToColumnMapper().containsKey(propertyName) || entityMapper.getNotNeedTransientPropertySet().contains(propertyName)) {
+                throw new DaoMethodParameterException("Param propertyName[" + propertyName + "]不是entity[" + entityClass.getSimpleName() + "]持久化的属性");
+            }
+            if (entityMapper.getStreamPropertySet().contains(propertyName)) {
+                throw new DaoMethodParameterException("Param propertyName[" + propertyName + "]是流类型的属性,只能通过readBinaryStream/readCharacterStream读取");
+            }
+        }
+
+        LinkedHashMap<String, Serializable> idMap = Maps.newLinkedHashMap();
+        for (T entity : entityList) {
+            checkArgumentEntity(entity);
+            Serializable id = DaoHelper.getPkValue((IdEntity) entity);
+            checkArgumentId(id);
+            idMap.putIfAbsent(id.toString(), id);
+        }
+        List<String> fieldList = Lists.newArrayList(entityMapper.getPkFieldName());
+        fieldList.addAll(propertyList);
+
+        Map<String, T> loadedMap = Maps.newHashMapWithExpectedSize(idMap.size());
+        int chunkSize = jdbcSettings.getIdChunkSize() > 0 ? jdbcSettings.getIdChunkSize() : dialect.maxInListSize();
+        for (List<Serializable> chunk : Lists.partition(Lists.newArrayList(idMap.values()), chunkSize)) {
+            List<T> chunkEntityList = this.findList(fieldList, Criteria.where(entityMapper.getPkFieldName(), CriteriaOperators.IN, chunk));
+            if (chunkEntityList != null) {
+                for (T loaded : chunkEntityList) {
+                    loadedMap.put(DaoHelper.getColumnValue(entityMapper.getPkField(), loaded).toString(), loaded);
+                }
+            }
+        }
+
+        for (T entity : entityList) {
+            T loaded = loadedMap.get(DaoHelper.getPkValue((IdEntity) entity).toString());
+            if (loaded == null) {
+                continue;
+            }
+            for (String propertyName : propertyList) {
+                Field field = entityMapper.getPropertyToFieldMapper().get(propertyName);
+                DaoHelper.setColumnValue(field, entity, DaoHelper.getColumnValue(field, loaded));
+            }
+            if (dirtyTracker != null) {
+                dirtyTracker.trackProperties(entity, propertyList);
+            }
+        }
+    }
+
+    public void load(T entity, String... propertyNames) throws DaoException {
+        this.load(Collections.singletonList(entity), propertyNames);
+    }
+
+    /**
+     * 流式读取一行中的二进制大字段,通过ResultSet.getBinaryStream读取,不会整体读入内存
+     * 按方言的streamingFetchSize读取,mysql只有流式结果集才不会把整行缓存在内存中
+     *
+     * @param id           - 主键
+     * @param propertyName - 属性名,对应BLOB等二进制列
+     * @param callback     - stream只在回调中有效
+     * @return - 回调的返回值,行不存在或列为null时不调用回调,返回null
+     * @throws DaoException
+     */
+    public <R> R readBinaryStream(Serializable id, String propertyName, LobCallback<InputStream, R> callback) throws DaoException {
+        return this.readStream(id, propertyName, true, callback);
+    }
+
+    /**
+     * 流式读取一行中的字符大字段,通过ResultSet.getCharacterStream读取,不会整体读入内存
+     *
+     * @param id           - 主键
+     * @param propertyName - 属性名,对应CLOB/TEXT等字符列
+     * @param callback     - reader只在回调中有效
+     * @return - 回调的返回值,行不存在或列为null时不调用回调,返回null
+     * @throws DaoException
+     */
+    public <R> R readCharacterStream(Serializable id, String propertyName, LobCallback<Reader, R> callback) throws DaoException {
+        return this.readStream(id, propertyName, false, callback);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R readStream(Serializable id, String propertyName, boolean binary, LobCallback<?, R> callback) {
+        checkArgumentId(id);
+        if (callback == null) {
+            throw new DaoMethodParameterException("Param callback must be not null");
+        }
+        String column = entityMapper.getPropertyToColumnMapper().get(propertyName);
+        if (column == null || entityMapper.getNotNeedTransientPropertySet().contains(propertyName)) {
+            throw new DaoMethodParameterException("Param propertyName[" + propertyName + "]不是entity[" + entityClass.getSimpleName() + "]持久化的属性");
+        }
+
+        final String sql = "SELECT " + column + SymbolConstant.BLANK + FROM(entityClass) + "WHERE "
+                + entityMapper.getPropertyToColumnMapper().get(entityMapper.getPkFieldName()) + " = ?";
+        final Object pkValue = entityMapper.typedValue(entityMapper.getPkFieldName(), id);
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) router.readRoute();
+        long start = System.nanoTime();
+
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug(formatSql(sql, Lists.newArrayList(pkValue)));
+            }
+            R result = jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(dialect.streamingFetchSize());
+                setParameterValue(ps, MixedConstant.INT_1, pkValue);
+                return ps;
+            }, (ResultSetExtractor<R>) rs -> {
+                if (!rs.next()) {
+                    return null;
+                }
+                //不能先用getObject判断null,部分驱动会把整个大字段读入内存
+                Object stream = binary ? rs.getBinaryStream(MixedConstant.INT_1) : rs.getCharacterStream(MixedConstant.INT_1);
+                if (stream == null) {
+                    return null;
+                }
+                try {
+                    return ((LobCallback<Object, R>) callback).doInStream(stream);
+                } catch (IOException e) {
+                    throw new DaoException("读取entity[" + entityClass.getSimpleName() + "] id[" + id + "]的属性[" + propertyName + "]失败", e);
+                }
+            });
+            recordMetrics(DaoOperation.READ_STREAM, start, result == null ? MixedConstant.INT_0 : MixedConstant.INT_1, jdbcTemplate, sql);
+            return result;
+        } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.READ_STREAM, start, e, jdbcTemplate, sql);
+            throw DaoExceptionTranslator.translate(e);
+        }
+    }
+
+    /**
+     * 按方言的streamingFetchSize用只进游标逐行读取,每行直接写入outputStream,不转换成entity也不缓存结果
+     * 导出查询结果中有对应属性的列,列名为属性名,大字段按值导出
+     */
+    @Override
+    public long export(Query query, OutputStream outputStream, ExportFormat format) throws DaoException {
+        checkArgumentQuery(query);
+        checkArgumentHint(query);
+        if (outputStream == null || format == null) {
+            throw new DaoMethodParameterException("Param outputStream and format must be not null");
+        }
+
+        List<Object> valueList = Lists.newArrayList();
+        StringBuilder sql = new StringBuilder();
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) router.readRoute();
+        long start = System.nanoTime();
+
+        try {
+            sql.append(SELECT(query, entityMapper, HINT_COMMENT(entityClass, query, dialect)));
+            sql.append(FROM(entityClass, query, dialect));
+            sql.append(WHERE(query.getCriteria(), valueList, entityMapper));
+            sql.append(GROUP_BY(query.getGroupBys(), entityMapper));
+            sql.append(ORDER_BY(query.getOrderBys(), entityMapper));
+            sql.append(LIMIT(query.getOffset(), query.getLimit(), dialect, sql));
+
+            if (log.isDebugEnabled()) {
+                log.debug(formatSql(sql.toString(), valueList));
+            }
+            checkPlan(jdbcTemplate, sql, valueList, query.getCriteria());
+
+            Long rows = jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(dialect.streamingFetchSize());
+                int i = MixedConstant.INT_0;
+                for (Object value : valueList) {
+                    setParameterValue(ps, ++i, value);
+                }
+                return ps;
+            }, (ResultSetExtractor<Long>) rs -> exportResultSet(rs, outputStream, format));
+            recordMetrics(DaoOperation.EXPORT, start, rows, jdbcTemplate, sql);
+            return rows;
+        } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.EXPORT, start, e, jdbcTemplate, sql);
             throw DaoExceptionTranslator.translate(e);
         }
     }
 
+    private long exportResultSet(ResultSet rs, OutputStream outputStream, ExportFormat format) throws SQLException {
+        //如oracle分页的行号列等没有对应属性的列不导出
+        ResultSetMetaData metaData = rs.getMetaData();
+        List<String> columns = Lists.newArrayList();
+        List<Integer> indexList = Lists.newArrayList();
+        for (int i = MixedConstant.INT_1; i <= metaData.getColumnCount(); i++) {
+            String propertyName = entityMapper.getColumnToPropertyMapper().get(JdbcUtils.lookupColumnName(metaData, i).toLowerCase());
+            if (propertyName != null) {
+                columns.add(propertyName);
+                indexList.add(i);
+            }
+        }
+
+        ExportWriter writer = ExportWriter.of(format, outputStream, columns);
+        writer.writeHeader();
+        Object[] values = new Object[indexList.size()];
+        long rows = MixedConstant.LONG_0;
+        while (rs.next()) {
+            for (int i = MixedConstant.INT_0; i < values.length; i++) {
+                //Blob/Clob在这里转换成byte[]/String
+                values[i] = JdbcUtils.getResultSetValue(rs, indexList.get(i));
+            }
+            writer.writeRow(values);
+            rows++;
+        }
+        writer.finish();
+        return rows;
+    }
+
+    /**
+     * 开启脏字段检查时只更新变化的字段,没有变化时不访问数据库,与es的noop一样返回0
+     * 有Version字段时没有变化也要做乐观锁检查,只更新version,过期的entity抛出OptimisticLockException
+     */
     @Override
     public int update(T entity) throws DaoException {
         checkArgumentEntity(entity);
 
-        return this.update(entity, null);
+        List<String> dirtyList = dirtyTracker == null ? null : dirtyTracker.dirtyProperties(entity);
+        if (dirtyList != null && dirtyList.isEmpty()) {
+            if (entityMapper.getVersionFieldName() == null) {
+                return MixedConstant.INT_0;
+            }
+            dirtyList = Lists.newArrayList(entityMapper.getVersionFieldName());
+        }
+        int n = this.update(entity, dirtyList);
+        if (n > MixedConstant.INT_0) {
+            track(entity);
+        }
+        return n;
     }
 
+    /**
+     * 有Version字段时按entity的version做乐观锁检查,成功后entity的version加1
+     * propetyList为空时值为null的延迟加载属性视为没有加载,不更新,需要置空时在propetyList中显式指定
+     */
     @Override
     public int update(T entity, List<String> propetyList) throws DaoException {
         checkArgumentEntity(entity);
 
         IdEntity idEntity = (IdEntity) entity;
         Serializable pkValue = DaoHelper.getPkValue(idEntity);
-        return this.updateById(pkValue, DaoHelper.entity2Update(entity, propetyList));
+        String versionFieldName = entityMapper.getVersionFieldName();
+        if (versionFieldName != null && CollectionUtils.isNotEmpty(propetyList) && !propetyList.contains(versionFieldName)) {
+            propetyList = Lists.newArrayList(propetyList);
+            propetyList.add(versionFieldName);
+        }
+        Update update = DaoHelper.entity2Update(entity, propetyList);
+        if (CollectionUtils.isEmpty(propetyList)) {
+            for (String lazyProperty : entityMapper.getLazyPropertySet()) {
+                if (update.get(lazyProperty) == null) {
+                    update.getSetMap().remove(lazyProperty);
+                }
+            }
+        }
+        int n = this.updateById(pkValue, update);
+        if (versionFieldName != null && n > MixedConstant.INT_0) {
+            Number version = (Number) DaoHelper.getColumnValue(entityMapper.getVersionField(), entity);
+            if (version != null) {
+                DaoHelper.setColumnValue(entityMapper.getVersionField(), entity, nextVersion(version));
+            }
+        }
+        return n;
     }
 
+    /**
+     * 有Version字段且update中带有version值时,只更新version匹配的行,没有匹配抛出OptimisticLockException
+     */
     @Override
     public int updateById(Serializable id, Update update) throws DaoException {
         checkArgumentId(id);
         checkArgumentUpdate(update);
 
-        return this.updateByCriteria(Criteria.where(entityMapper.getPkFieldName(), id), update);
+        String versionFieldName = entityMapper.getVersionFieldName();
+        Object expectedVersion = versionFieldName == null ? null : update.get(versionFieldName);
+        if (expectedVersion == null) {
+            return this.updateByCriteria(Criteria.where(entityMapper.getPkFieldName(), id), update);
+        }
+        int n = this.updateByCriteria(Criteria.where(entityMapper.getPkFieldName(), id).eq(versionFieldName, expectedVersion), update);
+        if (n == MixedConstant.INT_0) {
+            throw new OptimisticLockException("entity[" + entityClass.getSimpleName() + "] id[" + id + "] version[" + expectedVersion + "]已被修改或不存在");
+        }
+        return n;
+    }
+
+    private Number nextVersion(Number version) {
+        if (version instanceof Integer) {
+            return version.intValue() + MixedConstant.INT_1;
+        }
+        return version.longValue() + MixedConstant.LONG_1;
     }
 
     @Override
@@ -319,6 +1172,8 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
 
         List<Object> valueList = Lists.newArrayList();
         StringBuilder sql = new StringBuilder();
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) router.writeRoute();
+        long start = System.nanoTime();
 
         try {
             sql.append(UPDATE(entityClass));
@@ -328,8 +1183,12 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
             if (log.isDebugEnabled()) {
                 log.debug(formatSql(sql.toString(), valueList));
             }
-            return ((JdbcTemplate) router.writeRoute()).update(sql.toString(), valueList.toArray());
+            checkPlan(jdbcTemplate, sql, valueList, criteria);
+            int n = jdbcTemplate.update(sql.toString(), valueList.toArray());
+            recordMetrics(DaoOperation.UPDATE_BY_CRITERIA, start, n, jdbcTemplate, sql);
+            return n;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.UPDATE_BY_CRITERIA, start, e, jdbcTemplate, sql);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -339,18 +1198,23 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
         checkArgument(sql);
 
         List<Object> valueList = MapUtils.isEmpty(param) ? null : Lists.newArrayList(param.values());
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) router.writeRoute();
+        long start = System.nanoTime();
         try {
             if (log.isDebugEnabled()) {
                 log.debug(formatSql(sql, valueList));
             }
 
+            int n;
             if (CollectionUtils.isEmpty(valueList)) {
-                return ((JdbcTemplate) router.writeRoute()).update(sql);
+                n = jdbcTemplate.update(sql);
             } else {
-                return ((JdbcTemplate) router.writeRoute()).update(sql, valueList.toArray());
+                n = jdbcTemplate.update(sql, valueList.toArray());
             }
-
+            recordMetrics(DaoOperation.UPDATE_BY_SQL, start, n, jdbcTemplate, sql);
+            return n;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.UPDATE_BY_SQL, start, e, jdbcTemplate, sql);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -360,6 +1224,8 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
         checkArgumentId(id);
 
         StringBuilder sql = new StringBuilder();
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) router.writeRoute();
+        long start = System.nanoTime();
         try {
             sql.append(DELETE(entityClass));
             if (log.isDebugEnabled()) {
@@ -367,8 +1233,223 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
                 log.debug(formatSql(sql.toString(), valueList));
             }
 
-            return ((JdbcTemplate) router.writeRoute()).update(sql.toString(), new Object[]{id});
+            int n = jdbcTemplate.update(sql.toString(), entityMapper.typedValue(entityMapper.getPkFieldName(), id));
+            recordMetrics(DaoOperation.DELETE_BY_ID, start, n, jdbcTemplate, sql);
+            return n;
+        } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.DELETE_BY_ID, start, e, jdbcTemplate, sql);
+            throw DaoExceptionTranslator.translate(e);
+        }
+    }
+
+    /**
+     * 主键按idChunkSize分批,每批一条DELETE ... WHERE pk IN (...),顺序执行后累加删除数
+     */
+    @Override
+    public int deleteByIds(List<Serializable> ids) throws DaoException {
+        checkArgumentIds(ids);
+
+        int chunkSize = jdbcSettings.getIdChunkSize() > 0 ? jdbcSettings.getIdChunkSize() : dialect.maxInListSize();
+        int count = MixedConstant.INT_0;
+        for (List<Serializable> chunk : Lists.partition(ids, chunkSize)) {
+            Criteria criteria = Criteria.where(entityMapper.getPkFieldName(), CriteriaOperators.IN, chunk);
+            count += this.deleteByCriteria(criteria, DaoOperation.DELETE_BY_IDS);
+        }
+        return count;
+    }
+
+    @Override
+    public int deleteByCriteria(Criteria criteria) throws DaoException {
+        checkArgumentCriteria(criteria);
+
+        return this.deleteByCriteria(criteria, DaoOperation.DELETE_BY_CRITERIA);
+    }
+
+    private int deleteByCriteria(Criteria criteria, DaoOperation operation) {
+        List<Object> valueList = Lists.newArrayList();
+        StringBuilder sql = new StringBuilder();
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) router.writeRoute();
+        long start = System.nanoTime();
+
+        try {
+            sql.append(DELETE_FROM(entityClass));
+            sql.append(WHERE(criteria, valueList, entityMapper));
+
+            if (log.isDebugEnabled()) {
+                log.debug(formatSql(sql.toString(), valueList));
+            }
+            checkPlan(jdbcTemplate, sql, valueList, criteria);
+            int n = jdbcTemplate.update(sql.toString(), valueList.toArray());
+            recordMetrics(operation, start, n, jdbcTemplate, sql);
+            return n;
+        } catch (RuntimeException e) {
+            recordErrorMetrics(operation, start, e, jdbcTemplate, sql);
+            throw DaoExceptionTranslator.translate(e);
+        }
+    }
+
+    /**
+     * 按ChunkPolicy分批执行updateByCriteria,不能在事物中调用
+     *
+     * @return - 更新的总行数
+     */
+    public long updateByCriteria(Criteria criteria, Update update, ChunkPolicy chunkPolicy) throws DaoException {
+        checkArgumentCriteria(criteria);
+        checkArgumentUpdate(update);
+        checkArgumentChunkPolicy(chunkPolicy);
+
+        List<Object> headValueList = Lists.newArrayList();
+        String headSql = UPDATE(entityClass) + SET(update, headValueList, entityMapper);
+        return this.executeInChunks(criteria, chunkPolicy, DaoOperation.UPDATE_BY_CRITERIA, headSql, headValueList);
+    }
+
+    /**
+     * 按ChunkPolicy分批执行deleteByCriteria,不能在事物中调用
+     *
+     * @return - 删除的总行数
+     */
+    public long deleteByCriteria(Criteria criteria, ChunkPolicy chunkPolicy) throws DaoException {
+        checkArgumentCriteria(criteria);
+        checkArgumentChunkPolicy(chunkPolicy);
+
+        return this.executeInChunks(criteria, chunkPolicy, DaoOperation.DELETE_BY_CRITERIA, DELETE_FROM(entityClass), Lists.newArrayList());
+    }
+
+    /**
+     * 按主键keyset分批:先取本批第chunkSize个主键作为上界,再执行 headSql WHERE criteria AND pk > lastPk AND pk <= 上界
+     * 取不到上界说明剩余不足一批,最后一批只带下界
+     * 每条语句单独自动提交,锁只持有一批的时间
+     */
+    private long executeInChunks(Criteria criteria, ChunkPolicy chunkPolicy, DaoOperation operation, String headSql, List<Object> headValueList) {
+        if (this.inTransaction()) {
+            throw new DaoException("方法" + operation.methodName() + "分批执行时不能处于事物中");
+        }
+
+        String pkFieldName = entityMapper.getPkFieldName();
+        List<Object> whereValueList = Lists.newArrayList();
+        String whereSql = WHERE(criteria, whereValueList, entityMapper);
+        String orderBySql = ORDER_BY(Lists.newArrayList(OrderBy.asc(pkFieldName)), entityMapper);
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) router.writeRoute();
+        ChunkProgress progress = new ChunkProgress(chunkPolicy.getStartAfter());
+
+        while (!progress.isFinished()) {
+            StringBuilder sql = new StringBuilder();
+            long start = System.nanoTime();
+            try {
+                List<Object> valueList = Lists.newArrayList(whereValueList);
+                sql.append(SELECT_PK(entityMapper)).append(FROM(entityClass)).append(whereSql);
+                if (progress.getLastPk() != null) {
+                    sql.append(AND_PK_GT(entityMapper));
+                    valueList.add(entityMapper.typedValue(pkFieldName, progress.getLastPk()));
+                }
+                sql.append(orderBySql);
+                sql.append(LIMIT(chunkPolicy.getChunkSize() - MixedConstant.INT_1, MixedConstant.INT_1, dialect, sql));
+                List<Map<String, Object>> upperList = jdbcTemplate.queryForList(sql.toString(), valueList.toArray());
+                Serializable upperPk = upperList.isEmpty() ? null : (Serializable) upperList.get(MixedConstant.INT_0).get(entityMapper.getPropertyToColumnMapper().get(pkFieldName));
+
+                valueList = Lists.newArrayList(headValueList);
+                valueList.addAll(whereValueList);
+                sql.setLength(MixedConstant.INT_0);
+                sql.append(headSql).append(whereSql);
+                if (progress.getLastPk() != null) {
+                    sql.append(AND_PK_GT(entityMapper));
+                    valueList.add(entityMapper.typedValue(pkFieldName, progress.getLastPk()));
+                }
+                if (upperPk != null) {
+                    sql.append(AND_PK_LTE(entityMapper));
+                    valueList.add(entityMapper.typedValue(pkFieldName, upperPk));
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug(formatSql(sql.toString(), valueList));
+                }
+                int n = jdbcTemplate.update(sql.toString(), valueList.toArray());
+                recordMetrics(operation, start, n, jdbcTemplate, sql);
+                progress.chunkCommitted(n, upperPk, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (RuntimeException e) {
+                recordErrorMetrics(operation, start, e, jdbcTemplate, sql);
+                throw DaoExceptionTranslator.translate(e);
+            }
+
+            if (chunkPolicy.getListener() != null) {
+                chunkPolicy.getListener().onChunk(progress);
+            }
+            if (!progress.isFinished()) {
+                try {
+                    progress.slept(chunkPolicy.throttle(progress.getLastChunkMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DaoException("方法" + operation.methodName() + "分批执行被中断,已处理到主键[" + progress.getLastPk() + "]", e);
+                }
+            }
+        }
+        log.info("{} {}分批执行完成:{}", entityClass.getSimpleName(), operation.methodName(), progress);
+        return progress.getAffectedRows();
+    }
+
+    private void checkArgumentHint(Query query) {
+        String hint = query.getHint();
+        if (hint == null) {
+            return;
+        }
+        if (!isIndexName(hint)) {
+            throw new DaoMethodParameterException("Param query hint[" + hint + "] must be an index name");
+        }
+        if (indexNames != null && !indexNames.contains(hint)) {
+            throw new DaoMethodParameterException("索引[" + hint + "]在表[" + getTableName(entityClass) + "]上不存在,已知的索引" + indexNames);
+        }
+    }
+
+    private void checkArgumentChunkPolicy(ChunkPolicy chunkPolicy) {
+        if (chunkPolicy == null) {
+            throw new DaoMethodParameterException("Param chunkPolicy must be not null");
+        }
+        if (chunkPolicy.getChunkSize() <= MixedConstant.INT_0 || chunkPolicy.getSleepRatio() < 0D) {
+            throw new DaoMethodParameterException("Param chunkPolicy chunkSize must be positive and sleepRatio must not be negative");
+        }
+    }
+
+    @Override
+    public List<AggregationRow> aggregate(Query query) throws DaoException {
+        checkArgumentAggregationQuery(query);
+        checkArgumentHint(query);
+
+        List<Object> valueList = Lists.newArrayList();
+        StringBuilder sql = new StringBuilder();
+        final JdbcTemplate jdbcTemplate = (JdbcTemplate) router.readRoute();
+        long start = System.nanoTime();
+
+        try {
+            sql.append(SELECT_AGGREGATION(query, entityMapper, HINT_COMMENT(entityClass, query, dialect)));
+            sql.append(FROM(entityClass, query, dialect));
+            sql.append(WHERE(query.getCriteria(), valueList, entityMapper));
+            sql.append(GROUP_BY(query.getGroupBys(), entityMapper));
+            sql.append(HAVING(query, valueList, entityMapper));
+            sql.append(AGGREGATION_ORDER_BY(query, entityMapper));
+            sql.append(LIMIT(query.getOffset(), query.getLimit(), dialect, sql));
+
+            if (log.isDebugEnabled()) {
+                log.debug(formatSql(sql.toString(), valueList));
+            }
+            checkPlan(jdbcTemplate, sql, valueList, query.getCriteria());
+
+            List<Map<String, Object>> list = coalesceRead(sql.toString(), valueList, () -> jdbcTemplate.queryForList(sql.toString(), valueList.toArray()));
+            List<AggregationRow> rowList = Lists.newArrayListWithCapacity(list.size());
+            Map<String, String> propertyToColumnMapper = entityMapper.getPropertyToColumnMapper();
+            for (Map<String, Object> map : list) {
+                //queryForList返回的map的key大小写不敏感
+                AggregationRow row = new AggregationRow();
+                for (GroupBy groupBy : query.getGroupBys()) {
+                    row.put(groupBy.getKey(), map.get(propertyToColumnMapper.get(groupBy.getKey())));
+                }
+                for (Aggregation aggregation : query.getAggregations()) {
+                    row.put(aggregation.getAlias(), map.get(aggregation.getAlias()));
+                }
+                rowList.add(row);
+            }
+            recordMetrics(DaoOperation.AGGREGATE, start, rowList.size(), jdbcTemplate, sql);
+            return rowList;
         } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.AGGREGATE, start, e, jdbcTemplate, sql);
             throw DaoExceptionTranslator.translate(e);
         }
     }
@@ -503,6 +1584,177 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
         return this.findListByQuery(query, pageable);
     }
 
+    /**
+     * 按IN列表分批查询,多批时最多idChunkParallelism批并行执行(含当前线程),每批各自路由到一个读库
+     * 事务中的查询必须使用事务的连接,只能在当前线程中顺序执行
+     *
+     * @param ids - 已去重的主键
+     * @return - 不为null,顺序无保证
+     */
+    private List<T> findListByIdsInChunks(List<Serializable> ids) {
+        int chunkSize = jdbcSettings.getIdChunkSize() > 0 ? jdbcSettings.getIdChunkSize() : dialect.maxInListSize();
+        List<List<Serializable>> chunks = Lists.partition(ids, chunkSize);
+        List<T> entityList = Lists.newArrayListWithCapacity(ids.size());
+
+        if (chunks.size() == MixedConstant.INT_1 || this.inTransaction()) {
+            for (List<Serializable> chunk : chunks) {
+                List<T> chunkEntityList = this.findList(Criteria.where(entityMapper.getPkFieldName(), CriteriaOperators.IN, chunk));
+                if (chunkEntityList != null) {
+                    entityList.addAll(chunkEntityList);
+                }
+            }
+            return entityList;
+        }
+
+        List<List<T>> chunkResultList = DaoExecutors.mapBounded(chunks, jdbcSettings.getIdChunkParallelism(),
+                chunk -> this.findList(Criteria.where(entityMapper.getPkFieldName(), CriteriaOperators.IN, chunk)));
+        for (List<T> chunkEntityList : chunkResultList) {
+            if (chunkEntityList != null) {
+                entityList.addAll(chunkEntityList);
+            }
+        }
+        return entityList;
+    }
+
+    /**
+     * mysql下通过会话级临时表绑定大量主键,避免生成巨大的IN语句
+     * 建表、写入主键、查询、删表在同一个连接上完成
+     *
+     * @param ids - 已去重的主键
+     * @return - 不为null,顺序无保证
+     */
+    private List<T> findListByIdsWithTempTable(final List<Serializable> ids) {
+        final boolean numeric = ids.get(MixedConstant.INT_0) instanceof Number;
+        final String sql = SELECT(Query.query(), entityMapper) + FROM(entityClass) + WHERE_PK_IN_ID_TEMP_TABLE(entityMapper);
+        JdbcTemplate jdbcTemplate = (JdbcTemplate) router.readRoute();
+        long start = System.nanoTime();
+
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug(formatSql(sql) + ",tempTableIds.size=" + ids.size());
+            }
+
+            List<Map<String, Object>> list = jdbcTemplate.execute((ConnectionCallback<List<Map<String, Object>>>) connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(DROP_ID_TEMP_TABLE());
+                    statement.execute(CREATE_ID_TEMP_TABLE(numeric));
+                }
+                try {
+                    for (List<Serializable> chunk : Lists.partition(ids, dialect.maxBatchSize())) {
+                        try (PreparedStatement ps = connection.prepareStatement(INSERT_ID_TEMP_TABLE(chunk.size()))) {
+                            int i = MixedConstant.INT_0;
+                            for (Serializable id : chunk) {
+                                setParameterValue(ps, ++i, entityMapper.typedValue(entityMapper.getPkFieldName(), id));
+                            }
+                            ps.executeUpdate();
+                        }
+                    }
+                    try (PreparedStatement ps = connection.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+                        return new RowMapperResultSetExtractor<Map<String, Object>>(new ColumnMapRowMapper()).extractData(rs);
+                    }
+                } finally {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute(DROP_ID_TEMP_TABLE());
+                    }
+                }
+            });
+            recordMetrics(DaoOperation.FIND_MAP_BY_IDS, start, list.size(), jdbcTemplate, sql);
+
+            List<T> entityList = Lists.newArrayListWithCapacity(list.size());
+            for (Map<String, Object> map : list) {
+                entityList.add(track(map2Entity(map, entityMapper, entityClass)));
+            }
+            return entityList;
+        } catch (RuntimeException e) {
+            recordErrorMetrics(DaoOperation.FIND_MAP_BY_IDS, start, e, jdbcTemplate, sql);
+            throw DaoExceptionTranslator.translate(e);
+        }
+    }
+
+    /**
+     * 开启脏字段检查时记录entity的快照
+     */
+    private T track(T entity) {
+        if (dirtyTracker != null) {
+            dirtyTracker.track(entity);
+        }
+        return entity;
+    }
+
+    /**
+     * findOneById自动微批的统计信息
+     *
+     * @return - 未开启微批返回null
+     */
+    public IdBatchLoader.Stats getIdBatchStats() {
+        return idBatchLoader == null ? null : idBatchLoader.getStats();
+    }
+
+    private void recordMetrics(DaoOperation operation, long startNanos, long rows, JdbcTemplate jdbcTemplate, CharSequence sql) {
+        long latencyNanos = System.nanoTime() - startNanos;
+        operationMetrics[operation.ordinal()].record(latencyNanos, rows, router.getRouteName(jdbcTemplate));
+        recordSlowQuery(sql, latencyNanos, rows);
+    }
+
+    private void recordErrorMetrics(DaoOperation operation, long startNanos, Throwable e, JdbcTemplate jdbcTemplate, CharSequence sql) {
+        long latencyNanos = System.nanoTime() - startNanos;
+        operationMetrics[operation.ordinal()].recordError(latencyNanos, e, router.getRouteName(jdbcTemplate));
+        recordSlowQuery(sql, latencyNanos, MixedConstant.INT_0);
+    }
+
+    /**
+     * 只有需要记录时才计算sql指纹,同一条生成的sql只计算一次
+     */
+    private void recordSlowQuery(CharSequence sql, long latencyNanos, long rows) {
+        SlowQueryLog slowQueryLog = jdbcSettings.getSlowQueryLog();
+        if (slowQueryLog != null && sql != null && slowQueryLog.accept(latencyNanos)) {
+            String sqlString = sql.toString();
+            String fingerprint = sqlFingerprintCache.getIfPresent(sqlString);
+            if (fingerprint == null) {
+                fingerprint = fingerprintSql(sqlString);
+                sqlFingerprintCache.put(sqlString, fingerprint);
+            }
+            slowQueryLog.record(this.getClass().getSimpleName(), fingerprint, latencyNanos, rows);
+        }
+    }
+
+    /**
+     * 慢查询日志中按总耗时倒序的语句指纹统计
+     *
+     * @return - 未开启慢查询日志返回null
+     */
+    public List<SlowQueryStat> getSlowQueryTopN() {
+        return jdbcSettings.getSlowQueryLog() == null ? null : jdbcSettings.getSlowQueryLog().topStatements();
+    }
+
+    /**
+     * 当前线程是否处于事务中,包括TransactionManager开启的事务和spring的@Transactional事务
+     * 事务中的读写必须在当前线程使用事务的连接,不能交给工作线程、合并或批量加载
+     *
+     * @return
+     */
+    private boolean inTransaction() {
+        return TransactionContext.isInTransaction() || TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * 合并并发的相同读请求,以生成的sql和参数作为key
+     * 合并的是数据库返回的原始行,每个调用者各自转换entity,互不共享entity对象
+     *
+     * @param sql       - 执行的sql
+     * @param valueList - sql参数
+     * @param loader    - 真正的读操作
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private <R> R coalesceRead(String sql, List<Object> valueList, Supplier<R> loader) {
+        if (!jdbcSettings.isReadCoalescing() || this.inTransaction()) {
+            return loader.get();
+        }
+        List<Object> key = Lists.newArrayList(sql, valueList);
+        return (R) readSingleFlight.execute(key, (Supplier<Object>) loader);
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.applicationContext = applicationContext;
@@ -524,9 +1776,171 @@ public abstract class JdbcBaseDao<T> implements ApplicationContextAware, IBaseDa
             throw new DaoException("注解Dao的属性settingBeanName[" + settingsName + "]必须对应一个有效的JdbcSettings bean");
         }
 
+        this.dialect = this.jdbcSettings.getDialect();
+
         //create router
         JdbcDatabaseRouterFactory.INSTANCE.setDatabaseRouter(this.jdbcSettings);
         this.entityMapper = new EntityMapper(this.entityClass);
         this.router = JdbcDatabaseRouterFactory.INSTANCE.getDatabaseRouter(this.jdbcSettings);
+
+        //脏字段检查,不包括主键和不持久化的字段
+        if (jdbcSettings.isDirtyTracking()) {
+            List<String> propertyList = Lists.newArrayList();
+            for (String propertyName : entityMapper.getPropertyToColumnMapper().keySet()) {
+                if (!propertyName.equals(entityMapper.getPkFieldName()) && !entityMapper.getNotNeedTransientPropertySet().contains(propertyName)) {
+                    propertyList.add(propertyName);
+                }
+            }
+            this.dirtyTracker = new DirtyTracker(entityClass, propertyList);
+        }
+
+        //findPage总数缓存
+        if (jdbcSettings.getPageTotalCacheMillis() > 0) {
+            this.pageTotalCache = CacheBuilder.newBuilder()
+                    .expireAfterWrite(jdbcSettings.getPageTotalCacheMillis(), TimeUnit.MILLISECONDS)
+                    .maximumSize(PAGE_TOTAL_CACHE_SIZE)
+                    .build();
+        }
+
+        //Query.hint校验和执行计划检查
+        if (jdbcSettings.isHintValidation() || jdbcSettings.getPlanChecker() != null) {
+            Map<String, String> indexMap = this.loadIndexes();
+            if (indexMap != null && jdbcSettings.isHintValidation()) {
+                this.indexNames = indexMap.keySet();
+            }
+            if (indexMap != null && jdbcSettings.getPlanChecker() != null) {
+                this.indexLeadingColumns = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+                this.indexLeadingColumns.addAll(indexMap.values());
+            }
+        }
+
+        //dao指标
+        DaoOperation[] operations = DaoOperation.values();
+        this.operationMetrics = new DaoOperationMetrics[operations.length];
+        for (DaoOperation operation : operations) {
+            this.operationMetrics[operation.ordinal()] = jdbcSettings.getDaoMetrics().operationMetrics(daoClass, entityClass, operation);
+        }
+
+        //findOneById自动微批
+        if (jdbcSettings.getIdBatchWindowMicros() > 0) {
+            this.idBatchLoader = new IdBatchLoader<T>(jdbcSettings.getIdBatchWindowMicros(), jdbcSettings.getIdBatchMaxSize(), this::batchFindByIds);
+        }
+
+        //主键布隆过滤器
+        String bloomFilterSettingsName = DaoHelper.getBloomFilterSettingsName(daoClass);
+        if (StringUtils.isNotBlank(bloomFilterSettingsName)) {
+            BloomFilterSettings bloomFilterSettings = (BloomFilterSettings) this.applicationContext.getBean(bloomFilterSettingsName);
+            this.pkBloomIndex = new PkBloomIndex(entityClass.getSimpleName(), bloomFilterSettings, this::scanPk);
+            this.pkBloomIndex.start();
+        }
+    }
+
+    /**
+     * 从数据库元数据加载表上的索引,key为索引名,value为索引的第一列,都忽略大小写
+     * 加载失败或没有索引时返回null,此时Query.hint只校验名字格式,也不检查条件列是否有索引
+     */
+    private Map<String, String> loadIndexes() {
+        final String tableName = getTableName(entityClass);
+        try {
+            Map<String, String> indexMap = ((JdbcTemplate) router.readRoute()).execute((ConnectionCallback<Map<String, String>>) connection -> {
+                DatabaseMetaData metaData = connection.getMetaData();
+                Map<String, String> map = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+                //元数据中表名的大小写由数据库决定
+                for (String table : Sets.newLinkedHashSet(Arrays.asList(tableName, tableName.toUpperCase(), tableName.toLowerCase()))) {
+                    try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, table, false, true)) {
+                        while (rs.next()) {
+                            String indexName = rs.getString("INDEX_NAME");
+                            if (indexName != null && rs.getInt("ORDINAL_POSITION") == MixedConstant.INT_1) {
+                                map.put(indexName, rs.getString("COLUMN_NAME"));
+                            }
+                        }
+                    }
+                }
+                return map;
+            });
+            if (indexMap.isEmpty()) {
+                log.warn("表[{}]没有读取到索引,不校验Query.hint和条件列索引", tableName);
+                return null;
+            }
+            return indexMap;
+        } catch (RuntimeException e) {
+            log.warn("表[" + tableName + "]加载索引失败,不校验Query.hint和条件列索引", e);
+            return null;
+        }
+    }
+
+    /**
+     * 执行计划检查,开启时每类sql第一次被抽中时EXPLAIN一次
+     */
+    private void checkPlan(JdbcTemplate jdbcTemplate, CharSequence sql, List<Object> valueList, Criteria criteria) {
+        PlanChecker planChecker = jdbcSettings.getPlanChecker();
+        if (planChecker != null) {
+            planChecker.check(this.getClass().getSimpleName(), sql.toString(), valueList, jdbcTemplate, dialect,
+                    () -> this.unindexedPredicateColumns(criteria));
+        }
+    }
+
+    /**
+     * 条件列中没有任何一列是索引的第一列时返回所有条件列,否则返回空
+     */
+    private Collection<String> unindexedPredicateColumns(Criteria criteria) {
+        if (criteria == null || indexLeadingColumns == null) {
+            return Collections.emptyList();
+        }
+        Set<String> columnSet = Sets.newLinkedHashSet();
+        collectPredicateColumns(criteria, columnSet);
+        for (String column : columnSet) {
+            if (indexLeadingColumns.contains(column)) {
+                return Collections.emptyList();
+            }
+        }
+        return columnSet;
+    }
+
+    private void collectPredicateColumns(Criteria criteria, Set<String> columnSet) {
+        for (Criteria c : criteria.getCriteriaChain()) {
+            if (CriteriaOperators.isGroupOperator(c.getOperator())) {
+                for (Criteria groupCriteria : c.getGroupCriterias()) {
+                    collectPredicateColumns(groupCriteria, columnSet);
+                }
+            } else if (entityMapper.getPropertyToColumnMapper().containsKey(c.getKey())) {
+                columnSet.add(entityMapper.getPropertyToColumnMapper().get(c.getKey()));
+            }
+        }
+    }
+
+    /**
+     * 事务中插入的主键在事务结束后再写入一次,提交前开始的重建读不到未提交的行,只靠插入时的写入会在切换后丢失
+     */
+    private void putPk(Serializable pkValue) {
+        pkBloomIndex.put(pkValue);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    pkBloomIndex.put(pkValue);
+                }
+            });
+        }
+    }
+
+    /**
+     * 流式扫描全表主键,用于构建主键布隆过滤器
+     * 从主库扫描,从库延迟会漏掉刚插入的主键
+     *
+     * @param consumer
+     */
+    private void scanPk(Consumer<Serializable> consumer) {
+        final String sql = SELECT_PK(entityMapper) + FROM(entityClass);
+        if (log.isDebugEnabled()) {
+            log.debug(formatSql(sql));
+        }
+        ((JdbcTemplate) router.writeRoute()).query((PreparedStatementCreator) connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(dialect.streamingFetchSize());
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            consumer.accept((Serializable) rs.getObject(MixedConstant.INT_1));
+        });
     }
 }
\ No newline at end of file
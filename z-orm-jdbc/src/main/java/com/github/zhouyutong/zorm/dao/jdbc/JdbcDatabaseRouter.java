@@ -20,6 +20,8 @@ import java.util.concurrent.ThreadLocalRandom;
 public class JdbcDatabaseRouter implements DatabaseRouter {
     private List<JdbcTemplate> writeJdbcTemplate = Lists.newArrayList();
     private List<JdbcTemplate> readJdbcTemplate = Lists.newArrayList();
+    private List<String> writeRouteNames = Lists.newArrayList();
+    private List<String> readRouteNames = Lists.newArrayList();
 
     public JdbcDatabaseRouter(JdbcSettings jdbcSettings) {
         //write
@@ -28,6 +30,7 @@ public class JdbcDatabaseRouter implements DatabaseRouter {
             for (DataSource dataSource : writeList) {
                 JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
                 writeJdbcTemplate.add(jdbcTemplate);
+                writeRouteNames.add("write-" + writeRouteNames.size());
             }
         }
 
@@ -37,6 +40,7 @@ public class JdbcDatabaseRouter implements DatabaseRouter {
             for (DataSource dataSource : readList) {
                 JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
                 readJdbcTemplate.add(jdbcTemplate);
+                readRouteNames.add("read-" + readRouteNames.size());
             }
         }
     }
@@ -54,4 +58,22 @@ public class JdbcDatabaseRouter implements DatabaseRouter {
         int randomPos = ThreadLocalRandom.current().nextInt(readJdbcTemplate.size());
         return readJdbcTemplate.get(randomPos);
     }
+
+    /**
+     * 写库依次命名为write-0,write-1...,读库依次命名为read-0,read-1...
+     */
+    @Override
+    public String getRouteName(Object route) {
+        for (int i = 0; i < writeJdbcTemplate.size(); i++) {
+            if (writeJdbcTemplate.get(i) == route) {
+                return writeRouteNames.get(i);
+            }
+        }
+        for (int i = 0; i < readJdbcTemplate.size(); i++) {
+            if (readJdbcTemplate.get(i) == route) {
+                return readRouteNames.get(i);
+            }
+        }
+        return null;
+    }
 }
@@ -6,9 +6,11 @@ import com.github.zhouyutong.zorm.constant.SymbolConstant;
 import com.github.zhouyutong.zorm.dao.DaoHelper;
 import com.github.zhouyutong.zorm.dao.jdbc.annotation.Column;
 import com.github.zhouyutong.zorm.dao.jdbc.annotation.Table;
-import com.github.zhouyutong.zorm.dao.jdbc.enums.DialectEnum;
+import com.github.zhouyutong.zorm.dao.jdbc.annotation.Version;
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.Dialect;
 import com.github.zhouyutong.zorm.entity.IdEntity;
 import com.github.zhouyutong.zorm.exception.DaoException;
+import com.github.zhouyutong.zorm.exception.DaoMethodParameterException;
 import com.github.zhouyutong.zorm.query.*;
 import com.github.zhouyutong.zorm.utils.BeanUtils;
 import com.github.zhouyutong.zorm.utils.StrUtils;
@@ -16,14 +18,19 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
 import org.springframework.jdbc.support.JdbcUtils;
 
+import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * jdbcBaseDao内部帮助类
@@ -34,6 +41,14 @@ import java.util.*;
  */
 public final class JdbcHelper {
     private static final String DEBUG_SQL_PREFIX = "==========Dao Layer Generate SQL:";
+    /**
+     * 绑定主键的会话级临时表,只用于mysql
+     */
+    static final String ID_TEMP_TABLE = "z_orm_tmp_ids";
+    private static final String DEFERRED_JOIN_ALIAS = "t.";
+    private static final Pattern INDEX_NAME_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_$#]*");
+    private static final Pattern IN_LIST_PATTERN = Pattern.compile("\\( ?\\?(?: ?, ?\\?)* ?\\)");
+    private static final String[] MYSQL_STATEMENT_CLASS_NAMES = {"com.mysql.cj.jdbc.JdbcStatement", "com.mysql.jdbc.Statement"};
 
     private JdbcHelper() {
     }
@@ -43,11 +58,15 @@ public final class JdbcHelper {
     }
 
     static String SELECT(Query query, EntityMapper<?> entityMapper) {
+        return SELECT(query, entityMapper, SymbolConstant.EMPTY);
+    }
+
+    static String SELECT(Query query, EntityMapper<?> entityMapper, String hintComment) {
         Map<String, String> propertyToColumnMapper = entityMapper.getPropertyToColumnMapper();
         List<String> fields = query.getFields();
         List<GroupBy> groupBys = query.getGroupBys();
 
-        StringBuilder sb = new StringBuilder("SELECT ");
+        StringBuilder sb = new StringBuilder("SELECT ").append(hintComment);
 
         if (CollectionUtils.isNotEmpty(groupBys)) {
             for (GroupBy groupBy : groupBys) {
@@ -66,7 +85,7 @@ public final class JdbcHelper {
                     sb.append(column).append(SymbolConstant.COMMA);
                 }
             } else {
-                for (String column : propertyToColumnMapper.values()) {
+                for (String column : entityMapper.getDefaultSelectColumns()) {
                     sb.append(column).append(SymbolConstant.COMMA);
                 }
             }
@@ -77,14 +96,194 @@ public final class JdbcHelper {
         return sb.toString();
     }
 
+    static String SELECT_AGGREGATION(Query query, EntityMapper<?> entityMapper, String hintComment) {
+        StringBuilder sb = new StringBuilder("SELECT ").append(hintComment);
+        for (GroupBy groupBy : query.getGroupBys()) {
+            sb.append(getMappedColumn(groupBy.getKey(), entityMapper)).append(SymbolConstant.COMMA);
+        }
+        for (Aggregation aggregation : query.getAggregations()) {
+            sb.append(AGGREGATION(aggregation, entityMapper)).append(" AS ").append(aggregation.getAlias()).append(SymbolConstant.COMMA);
+        }
+        sb.deleteCharAt(sb.length() - MixedConstant.INT_1);//去掉最后一个,
+        sb.append(SymbolConstant.BLANK);
+        return sb.toString();
+    }
+
+    static String AGGREGATION(Aggregation aggregation, EntityMapper<?> entityMapper) {
+        if (aggregation.getType() == Aggregation.Type.COUNT) {
+            return "COUNT(*)";
+        }
+        String column = getMappedColumn(aggregation.getKey(), entityMapper);
+        if (aggregation.getType() == Aggregation.Type.COUNT_DISTINCT) {
+            return "COUNT(DISTINCT " + column + ")";
+        }
+        return aggregation.getType().name() + "(" + column + ")";
+    }
+
+    /**
+     * having的key为聚合别名时翻译为聚合表达式(oracle不支持在having中引用别名),否则为group by属性的列
+     */
+    static String HAVING(Query query, List<Object> valueList, EntityMapper<?> entityMapper) {
+        Criteria having = query.getHaving();
+        if (having == null) {
+            return SymbolConstant.EMPTY;
+        }
+
+        Map<String, String> aliasToExpression = Maps.newHashMap();
+        for (Aggregation aggregation : query.getAggregations()) {
+            aliasToExpression.put(aggregation.getAlias(), AGGREGATION(aggregation, entityMapper));
+        }
+        StringBuilder havingSB = new StringBuilder("HAVING ");
+        appendConditions(havingSB, having, valueList, entityMapper, aliasToExpression);
+        return havingSB.append(SymbolConstant.BLANK).toString();
+    }
+
+    /**
+     * 聚合查询的排序,key可以是聚合别名或group by属性
+     */
+    static String AGGREGATION_ORDER_BY(Query query, EntityMapper<?> entityMapper) {
+        if (CollectionUtils.isEmpty(query.getOrderBys())) {
+            return SymbolConstant.EMPTY;
+        }
+
+        StringBuilder sb = new StringBuilder("ORDER BY ");
+        for (OrderBy orderBy : query.getOrderBys()) {
+            String key = orderBy.getKey();
+            String expression = isAggregationAlias(query, key) ? key : getMappedColumn(key, entityMapper);
+            sb.append(expression).append(SymbolConstant.BLANK).append(orderBy.getDirection()).append(SymbolConstant.COMMA);
+        }
+        sb.deleteCharAt(sb.length() - MixedConstant.INT_1);//去掉最后一个,
+        sb.append(SymbolConstant.BLANK);
+        return sb.toString();
+    }
+
+    private static boolean isAggregationAlias(Query query, String key) {
+        for (Aggregation aggregation : query.getAggregations()) {
+            if (aggregation.getAlias().equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getMappedColumn(String property, EntityMapper<?> entityMapper) {
+        String column = entityMapper.getPropertyToColumnMapper().get(property);
+        if (column == null) {
+            throw new DaoMethodParameterException("属性[" + property + "]不是持久化字段也不是聚合别名");
+        }
+        return column;
+    }
+
+    static String SELECT_PK(EntityMapper<?> entityMapper) {
+        return SELECT_PK(entityMapper, SymbolConstant.EMPTY);
+    }
+
+    static String SELECT_PK(EntityMapper<?> entityMapper, String hintComment) {
+        return "SELECT " + hintComment + entityMapper.getPropertyToColumnMapper().get(entityMapper.getPkFieldName()) + SymbolConstant.BLANK;
+    }
+
+    /**
+     * 延迟关联:pkPageSql只按条件、排序和分页取主键(可以只扫描索引),再按主键关联回表取整行,外层按相同的排序重新排一次
+     * SELECT t.c1,t.c2 FROM table t JOIN (pkPageSql) d ON t.pk = d.pk ORDER BY t.o1
+     */
+    static String DEFERRED_JOIN(Query query, EntityMapper<?> entityMapper, Class<?> entityClass, String pkPageSql) {
+        Map<String, String> propertyToColumnMapper = entityMapper.getPropertyToColumnMapper();
+        String pkColumn = propertyToColumnMapper.get(entityMapper.getPkFieldName());
+        Collection<String> columns = entityMapper.getDefaultSelectColumns();
+        if (CollectionUtils.isNotEmpty(query.getFields())) {
+            columns = Lists.newArrayList();
+            for (String field : query.getFields()) {
+                columns.add(propertyToColumnMapper.get(field));
+            }
+        }
+
+        StringBuilder sb = new StringBuilder("SELECT ");
+        for (String column : columns) {
+            sb.append(DEFERRED_JOIN_ALIAS).append(column).append(SymbolConstant.COMMA);
+        }
+        sb.deleteCharAt(sb.length() - MixedConstant.INT_1);//去掉最后一个,
+        sb.append(" FROM ").append(getTableName(entityClass)).append(" t JOIN (").append(pkPageSql).append(") d ON ")
+                .append(DEFERRED_JOIN_ALIAS).append(pkColumn).append(" = d.").append(pkColumn).append(SymbolConstant.BLANK);
+        if (CollectionUtils.isNotEmpty(query.getOrderBys())) {
+            sb.append("ORDER BY ");
+            for (OrderBy orderBy : query.getOrderBys()) {
+                sb.append(DEFERRED_JOIN_ALIAS).append(propertyToColumnMapper.get(orderBy.getKey())).append(SymbolConstant.BLANK)
+                        .append(orderBy.getDirection()).append(SymbolConstant.COMMA);
+            }
+            sb.deleteCharAt(sb.length() - MixedConstant.INT_1);//去掉最后一个,
+        }
+        return sb.toString();
+    }
+
+    static String CREATE_ID_TEMP_TABLE(boolean numeric) {
+        return "CREATE TEMPORARY TABLE " + ID_TEMP_TABLE + " (id " + (numeric ? "BIGINT" : "VARCHAR(255)") + " NOT NULL PRIMARY KEY) ENGINE=MEMORY";
+    }
+
+    static String DROP_ID_TEMP_TABLE() {
+        return "DROP TEMPORARY TABLE IF EXISTS " + ID_TEMP_TABLE;
+    }
+
+    static String INSERT_ID_TEMP_TABLE(int size) {
+        StringBuilder sb = new StringBuilder("INSERT INTO " + ID_TEMP_TABLE + " (id) VALUES ");
+        for (int i = MixedConstant.INT_0; i < size; i++) {
+            sb.append("(?)").append(SymbolConstant.COMMA);
+        }
+        sb.deleteCharAt(sb.length() - MixedConstant.INT_1);//去掉最后一个,
+        return sb.toString();
+    }
+
+    static String WHERE_PK_IN_ID_TEMP_TABLE(EntityMapper<?> entityMapper) {
+        return "WHERE " + entityMapper.getPropertyToColumnMapper().get(entityMapper.getPkFieldName()) + " IN (SELECT id FROM " + ID_TEMP_TABLE + ") ";
+    }
+
+    static String AND_PK_GT(EntityMapper<?> entityMapper) {
+        return "AND " + entityMapper.getPropertyToColumnMapper().get(entityMapper.getPkFieldName()) + " > ? ";
+    }
+
+    static String AND_PK_LTE(EntityMapper<?> entityMapper) {
+        return "AND " + entityMapper.getPropertyToColumnMapper().get(entityMapper.getPkFieldName()) + " <= ? ";
+    }
+
     static String DELETE(Class<?> entityClass) {
         return "DELETE " + FROM(entityClass) + " WHERE id = ?";
     }
 
+    static String DELETE_FROM(Class<?> entityClass) {
+        return "DELETE " + FROM(entityClass);
+    }
+
     static String FROM(Class<?> entityClass) {
         return "FROM " + getTableName(entityClass) + SymbolConstant.BLANK;
     }
 
+    /**
+     * mysql等的索引hint跟在表名后
+     */
+    static String FROM(Class<?> entityClass, Query query, Dialect dialect) {
+        String indexHint = query.getHint() == null ? SymbolConstant.EMPTY : dialect.tableIndexHint(query.getHint(), query.isForceIndex());
+        if (indexHint.isEmpty()) {
+            return FROM(entityClass);
+        }
+        return "FROM " + getTableName(entityClass) + SymbolConstant.BLANK + indexHint + SymbolConstant.BLANK;
+    }
+
+    /**
+     * oracle等的索引hint跟在SELECT后
+     */
+    static String HINT_COMMENT(Class<?> entityClass, Query query, Dialect dialect) {
+        if (query.getHint() == null) {
+            return SymbolConstant.EMPTY;
+        }
+        return dialect.selectIndexHint(getTableName(entityClass), query.getHint());
+    }
+
+    /**
+     * hint直接拼进sql,只允许合法的索引名
+     */
+    static boolean isIndexName(String hint) {
+        return INDEX_NAME_PATTERN.matcher(hint).matches();
+    }
+
     static String GROUP_BY(List<GroupBy> groupByList, EntityMapper entityMapper) {
         if (CollectionUtils.isEmpty(groupByList)) {
             return SymbolConstant.EMPTY;
@@ -113,28 +312,13 @@ public final class JdbcHelper {
         return sb.toString();
     }
 
-    static String LIMIT(int offset, int limit, DialectEnum dialectEnum, final StringBuilder sql) {
+    static String LIMIT(int offset, int limit, Dialect dialect, final StringBuilder sql) {
         if (offset < MixedConstant.INT_0 || limit <= MixedConstant.INT_0) {
             return SymbolConstant.EMPTY;
         }
-        StringBuilder newSql = new StringBuilder();
-        if (DialectEnum.MYSQL.equals(dialectEnum)) {
-            newSql.append(sql.toString());
-            newSql.append("LIMIT ");
-            newSql.append(offset).append(SymbolConstant.COMMA).append(limit);
-        } else if (DialectEnum.ORACLE.equals(dialectEnum)) {
-            newSql.append("SELECT * FROM (")
-                    .append("SELECT ROWNUM AS RN,table_alias.* FROM (")
-                    .append(sql.toString())
-                    .append(") table_alias ")
-                    .append("WHERE ROWNUM <= ")
-                    .append(offset + limit)
-                    .append(") ")
-                    .append("WHERE RN > ").append(offset);
-
-        }
+        String newSql = dialect.limit(sql.toString(), offset, limit);
         sql.setLength(MixedConstant.INT_0);
-        return newSql.toString();
+        return newSql;
     }
 
     static String UPDATE(Class<?> entityClass) {
@@ -145,14 +329,21 @@ public final class JdbcHelper {
         Map<String, String> propertyToColumnMapper = entityMapper.getPropertyToColumnMapper();
         Set<String> notNeedTransientPropertySet = entityMapper.getNotNeedTransientPropertySet();
 
+        String versionFieldName = entityMapper.getVersionFieldName();
+
         StringBuilder sb = new StringBuilder("SET ");
         Set<String> keySet = update.getSetMap().keySet();
         for (String key : keySet) {
-            if (notNeedTransientPropertySet.contains(key)) {
+            if (notNeedTransientPropertySet.contains(key) || key.equals(versionFieldName)) {
                 continue;
             }
             sb.append(propertyToColumnMapper.get(key)).append("=?,");
-            valueList.add(update.get(key));
+            valueList.add(entityMapper.typedValue(key, update.get(key)));
+        }
+        //乐观锁版本字段每次更新自动加1,update中的version值只作为期望的旧版本
+        if (versionFieldName != null) {
+            String versionColumn = propertyToColumnMapper.get(versionFieldName);
+            sb.append(versionColumn).append("=").append(versionColumn).append("+1,");
         }
         sb.deleteCharAt(sb.length() - MixedConstant.INT_1);//去掉最后一个,
         sb.append(SymbolConstant.BLANK);
@@ -172,6 +363,10 @@ public final class JdbcHelper {
                 if (propertyName == null) {
                     continue;
                 }
+                //流类型的属性只能流式读取,查询结果中的值不转换
+                if (entityMapper.getStreamPropertySet().contains(propertyName)) {
+                    continue;
+                }
                 propertyMap.put(propertyName, v);
             }
             return BeanUtils.mapToBean(propertyMap, entityClass);
@@ -193,56 +388,99 @@ public final class JdbcHelper {
             return SymbolConstant.EMPTY;
         }
 
-        Map<String, String> propertyToColumnMapper = entityMapper.getPropertyToColumnMapper();
+        StringBuilder whereSB = new StringBuilder("WHERE ");
+        appendConditions(whereSB, criteria, valueList, entityMapper, null);
+        return whereSB.append(SymbolConstant.BLANK).toString();
+    }
 
-        StringBuilder whereSB = new StringBuilder();
+    /**
+     * criteria链上的条件用AND连接,OR/AND分组递归生成括号,如 a = ? AND ((b = ?) OR (c > ? AND d IS NULL))
+     *
+     * @param aliasToExpression - 聚合别名到聚合表达式,只在having中使用,别名上的比较值不做类型绑定
+     */
+    private static void appendConditions(StringBuilder sb, Criteria criteria, List<Object> valueList, EntityMapper<?> entityMapper, Map<String, String> aliasToExpression) {
         //criteria一定不为null，且criteria.getCriteriaChain()一定不为empty
-        List<Criteria> criterias = criteria.getCriteriaChain();
-        for (Criteria c : criterias) {
-            if (CriteriaOperators.isNoValueOperator(c.getOperator())) {
-                whereSB.append(" AND ").append(propertyToColumnMapper.get(c.getKey())).append(SymbolConstant.BLANK).append(c.getOperator());
-            } else if (CriteriaOperators.isSingleValueOperator(c.getOperator())) {
-                whereSB.append(" AND ").append(propertyToColumnMapper.get(c.getKey())).append(SymbolConstant.BLANK).append(c.getOperator()).append(" ?");
-                valueList.add(c.getValue());
-            } else if (CriteriaOperators.isMultiValueOperator(c.getOperator())) {
-                whereSB.append(" AND ").append(propertyToColumnMapper.get(c.getKey())).append(SymbolConstant.BLANK).append(c.getOperator()).append(" (");
-                Collection collection = (Collection) c.getValue();
-                for (Object item : collection) {
-                    whereSB.append(SymbolConstant.QUESTION).append(SymbolConstant.COMMA);
-                    valueList.add(item);
+        boolean first = true;
+        for (Criteria c : criteria.getCriteriaChain()) {
+            String operator = c.getOperator();
+            boolean group = CriteriaOperators.isGroupOperator(operator);
+            if (!group && !CriteriaOperators.isNoValueOperator(operator)
+                    && !CriteriaOperators.isSingleValueOperator(operator) && !CriteriaOperators.isMultiValueOperator(operator)) {
+                continue;   //match等es专用的操作符忽略
+            }
+            if (!first) {
+                sb.append(" AND ");
+            }
+            first = false;
+
+            if (group) {
+                sb.append("(");
+                List<Criteria> groupCriterias = c.getGroupCriterias();
+                for (int i = MixedConstant.INT_0; i < groupCriterias.size(); i++) {
+                    if (i > MixedConstant.INT_0) {
+                        sb.append(SymbolConstant.BLANK).append(operator).append(SymbolConstant.BLANK);
+                    }
+                    sb.append("(");
+                    appendConditions(sb, groupCriterias.get(i), valueList, entityMapper, aliasToExpression);
+                    sb.append(")");
                 }
-                whereSB.deleteCharAt(whereSB.length() - MixedConstant.INT_1);
-                whereSB.append(")");
+                sb.append(")");
+                continue;
+            }
+
+            String expression = aliasToExpression == null ? null : aliasToExpression.get(c.getKey());
+            boolean aggregated = expression != null;
+            if (!aggregated) {
+                expression = aliasToExpression == null ? entityMapper.getPropertyToColumnMapper().get(c.getKey()) : getMappedColumn(c.getKey(), entityMapper);
+            }
+            sb.append(expression).append(SymbolConstant.BLANK).append(operator);
+            if (CriteriaOperators.isSingleValueOperator(operator)) {
+                sb.append(" ?");
+                valueList.add(aggregated ? c.getValue() : entityMapper.typedValue(c.getKey(), c.getValue()));
+            } else if (CriteriaOperators.isMultiValueOperator(operator)) {
+                sb.append(" (");
+                for (Object item : (Collection) c.getValue()) {
+                    sb.append(SymbolConstant.QUESTION).append(SymbolConstant.COMMA);
+                    valueList.add(aggregated ? item : entityMapper.typedValue(c.getKey(), item));
+                }
+                sb.deleteCharAt(sb.length() - MixedConstant.INT_1);
+                sb.append(")");
             }
         }
-        String whereSql = "WHERE " + whereSB.delete(MixedConstant.INT_0, MixedConstant.INT_5).toString() + SymbolConstant.BLANK;//去掉第一个 and
-        return whereSql;
     }
 
     /**
-     * 生成oracle id
+     * 通过sequence生成id
      *
      * @param sequence   - sequence名字
+     * @param dialect    - 方言
      * @param connection - 链接
      * @return - id
      */
-    private static Long genOracleId(String sequence, Connection connection) {
+    private static Long genSequenceId(String sequence, Dialect dialect, Connection connection) {
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         try {
-            pstmt = connection.prepareStatement("SELECT " + sequence + ".NEXTVAL AS ID FROM DUAL");
+            pstmt = connection.prepareStatement(dialect.sequenceNextValSql(sequence));
             rs = pstmt.executeQuery();
             rs.next();
             return rs.getLong(MixedConstant.INT_1);
         } catch (SQLException e) {
-            throw new DaoException("无法获取oracle的sequence:" + sequence);
+            throw new DaoException("无法获取sequence:" + sequence, e);
         } finally {
             JdbcUtils.closeResultSet(rs);
             JdbcUtils.closeStatement(pstmt);
         }
     }
 
-    static String INSERT(IdEntity idEntity, List<Object> valueList, EntityMapper<?> entityMapper, Class<?> entityClass, DialectEnum dialectEnum, Connection connection) {
+    /**
+     * 主键没有赋值时是否通过generatedKeys取回数据库生成的主键,否则主键由sequence生成
+     */
+    static boolean useGeneratedKey(Class<?> entityClass, Dialect dialect) {
+        return dialect.supportsGeneratedKeys() && (StringUtils.isBlank(getSequenceName(entityClass)) || dialect.sequenceNextValSql(getSequenceName(entityClass)) == null);
+    }
+
+    static String INSERT(IdEntity idEntity, List<Object> valueList, EntityMapper<?> entityMapper, Class<?> entityClass, Dialect dialect, Connection connection) {
         Map<String, String> propertyToColumnMapper = entityMapper.getPropertyToColumnMapper();
         Set<String> notNeedTransientPropertySet = entityMapper.getNotNeedTransientPropertySet();
 
@@ -260,17 +498,17 @@ public final class JdbcHelper {
         if (DaoHelper.hasSetPkValue(pkValue)) {
             pList.add(SymbolConstant.QUESTION);
             sb.append(propertyToColumnMapper.get(entityMapper.getPkFieldName())).append(SymbolConstant.COMMA);
-            valueList.add(pkValue);
+            valueList.add(entityMapper.typedValue(entityMapper.getPkFieldName(), pkValue));
         } else {
-            if (DialectEnum.ORACLE.equals(dialectEnum)) {
+            if (!useGeneratedKey(entityClass, dialect)) {
                 sb.append(propertyToColumnMapper.get(entityMapper.getPkFieldName())).append(SymbolConstant.COMMA);
                 if (StringUtils.isNotBlank(getSequenceName(entityClass))) {
                     pList.add(SymbolConstant.QUESTION);
-                    Long oracleId = genOracleId(getSequenceName(entityClass), connection);
-                    valueList.add(oracleId);
-                    DaoHelper.setColumnValue(pkField, idEntity, oracleId);
+                    Long sequenceId = genSequenceId(getSequenceName(entityClass), dialect, connection);
+                    valueList.add(entityMapper.typedValue(entityMapper.getPkFieldName(), sequenceId));
+                    DaoHelper.setColumnValue(pkField, idEntity, sequenceId);
                 } else {
-                    throw new DaoException("连接ORACLE,实体Table注解必须设置sequence");
+                    throw new DaoException("连接" + dialect.getDialectEnum() + ",实体Table注解必须设置sequence");
                 }
             }
         }
@@ -290,7 +528,7 @@ public final class JdbcHelper {
 
             sb.append(columnName).append(SymbolConstant.COMMA);
             pList.add(SymbolConstant.QUESTION);
-            valueList.add(DaoHelper.getColumnValue(fieldName, idEntity));
+            valueList.add(entityMapper.typedValue(fieldName, DaoHelper.getColumnValue(fieldName, idEntity)));
         }
         sb.deleteCharAt(sb.length() - MixedConstant.INT_1).append(")");
 
@@ -303,6 +541,31 @@ public final class JdbcHelper {
         return sb.toString();
     }
 
+    /**
+     * 按主键存在则更新、不存在则插入,主键必须已赋值
+     * 值为null的延迟加载属性视为没有加载,不写入
+     */
+    static String UPSERT(IdEntity idEntity, List<Object> valueList, EntityMapper<?> entityMapper, Class<?> entityClass, Dialect dialect) {
+        Set<String> notNeedTransientPropertySet = entityMapper.getNotNeedTransientPropertySet();
+        String pkColumn = entityMapper.getPropertyToColumnMapper().get(entityMapper.getPkFieldName());
+
+        List<String> columnList = Lists.newArrayList(pkColumn);
+        valueList.add(entityMapper.typedValue(entityMapper.getPkFieldName(), DaoHelper.getPkValue(idEntity)));
+        for (Map.Entry<String, String> entry : entityMapper.getPropertyToColumnMapper().entrySet()) {
+            String fieldName = entry.getKey();
+            if (fieldName.equals(entityMapper.getPkFieldName()) || notNeedTransientPropertySet.contains(fieldName)) {
+                continue;
+            }
+            Object value = DaoHelper.getColumnValue(fieldName, idEntity);
+            if (value == null && entityMapper.getLazyPropertySet().contains(fieldName)) {
+                continue;
+            }
+            columnList.add(entry.getValue());
+            valueList.add(entityMapper.typedValue(fieldName, value));
+        }
+        return dialect.upsert(getTableName(entityClass), columnList, Lists.newArrayList(pkColumn));
+    }
+
     /**
      * 根据entity的class获取对应的表名
      *
@@ -352,6 +615,8 @@ public final class JdbcHelper {
 
         int pkAnnotationCount = 0;
         String pkFieldTypeName = "";
+        int versionAnnotationCount = 0;
+        List<String> supportVersionFieldType = Lists.newArrayList("java.lang.Integer", "java.lang.Long");
         List<String> supportPKFieldType = Lists.newArrayList("java.lang.Integer", "java.lang.Long", "java.lang.String");
         for (Field field : fields) {
             if (DaoHelper.isFinalOrStatic(field)) {
@@ -367,6 +632,19 @@ public final class JdbcHelper {
                 pkAnnotationCount++;
                 pkFieldTypeName = field.getType().getName();
             }
+
+            if (field.getAnnotation(Version.class) != null) {
+                versionAnnotationCount++;
+                if (!supportVersionFieldType.contains(field.getType().getName())) {
+                    throw new DaoException("entity[" + entityClassName + "]的Version字段类型只能是Long,Integer其中之一");
+                }
+                if (pkAnnotation != null || !columnAnnotation.isTransient()) {
+                    throw new DaoException("entity[" + entityClassName + "]的Version字段不能是主键或不持久化的字段");
+                }
+            }
+        }
+        if (versionAnnotationCount > 1) {
+            throw new DaoException("entity[" + entityClassName + "] 最多只能有一个Version注解的字段");
         }
         if (pkAnnotationCount != 1) {
             throw new DaoException("entity[" + entityClassName + "] 有且只能有一个PK注解的字段");
@@ -392,6 +670,51 @@ public final class JdbcHelper {
         }
     }
 
+    /**
+     * 绑定一个sql参数,ColumnValue直接使用字段的绑定器,其他值按TYPE_UNKNOWN交给StatementCreatorUtils
+     *
+     * @param ps    -
+     * @param index - 从1开始
+     * @param value -
+     * @throws SQLException
+     */
+    static void setParameterValue(PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value instanceof ColumnValue) {
+            ((ColumnValue) value).bind(ps, index);
+        } else {
+            StatementCreatorUtils.setParameterValue(ps, index, SqlTypeValue.TYPE_UNKNOWN, value);
+        }
+    }
+
+    /**
+     * mysql驱动的LOAD DATA LOCAL INFILE从该流读取数据而不是文件,驱动没有编译依赖,通过反射调用
+     * 兼容5.x(com.mysql.jdbc.Statement)和8.x(com.mysql.cj.jdbc.JdbcStatement)
+     *
+     * @param statement   - 执行LOAD DATA的statement,可以是连接池的代理
+     * @param inputStream - 数据流,对该statement之后执行的LOAD DATA有效
+     * @return - 不是mysql驱动时返回false
+     */
+    static boolean setLocalInfileInputStream(Statement statement, InputStream inputStream) throws SQLException {
+        for (String className : MYSQL_STATEMENT_CLASS_NAMES) {
+            Class<?> statementClass;
+            try {
+                statementClass = Class.forName(className, false, statement.getClass().getClassLoader());
+            } catch (ClassNotFoundException e) {
+                continue;
+            }
+            if (!statement.isWrapperFor(statementClass)) {
+                continue;
+            }
+            try {
+                statementClass.getMethod("setLocalInfileInputStream", InputStream.class).invoke(statement.unwrap(statementClass), inputStream);
+                return true;
+            } catch (ReflectiveOperationException e) {
+                throw new DaoException("设置LOAD DATA LOCAL INFILE的数据流失败", e);
+            }
+        }
+        return false;
+    }
+
     /**
      * 格式化执行的sql
      *
@@ -410,7 +733,7 @@ public final class JdbcHelper {
         for (int i = MixedConstant.INT_0; i < length; i++) {
             char c = sql.charAt(i);
             if (c == '?') {
-                Object value = valueList.get(questionIndex);
+                Object value = ColumnValue.unwrap(valueList.get(questionIndex));
                 if (value instanceof String) {
                     sb.append("'").append(value.toString()).append("'");
                 } else {
@@ -433,4 +756,54 @@ public final class JdbcHelper {
     public static String formatSql(String sql) {
         return formatSql(sql, Lists.newArrayList());
     }
+
+    /**
+     * 得到sql的指纹,用于慢查询统计
+     * 字符串和数字常量替换为?,连续空白合并为一个空格,IN列表不论长度都折叠为(?+)
+     * 同一类语句不论参数值和IN列表长度都得到相同的指纹
+     *
+     * @param sql
+     * @return
+     */
+    public static String fingerprintSql(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        int length = sql.length();
+        for (int i = MixedConstant.INT_0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {  //字符串常量,''为转义的单引号
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                sb.append(SymbolConstant.QUESTION);
+            } else if (Character.isDigit(c) && !isIdentifierTail(sb)) {    //数字常量,标识符中的数字保留
+                while (i + 1 < length && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) {
+                    i++;
+                }
+                sb.append(SymbolConstant.QUESTION);
+            } else if (Character.isWhitespace(c)) {
+                if (sb.length() > MixedConstant.INT_0 && sb.charAt(sb.length() - MixedConstant.INT_1) != ' ') {
+                    sb.append(' ');
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return IN_LIST_PATTERN.matcher(sb.toString().trim()).replaceAll("(?+)");
+    }
+
+    private static boolean isIdentifierTail(StringBuilder sb) {
+        if (sb.length() == MixedConstant.INT_0) {
+            return false;
+        }
+        char c = sb.charAt(sb.length() - MixedConstant.INT_1);
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
 }
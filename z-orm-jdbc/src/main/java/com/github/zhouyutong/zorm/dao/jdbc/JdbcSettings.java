@@ -1,7 +1,16 @@
 package com.github.zhouyutong.zorm.dao.jdbc;
 
 import com.github.zhouyutong.zorm.dao.DaoSettings;
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.Dialect;
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.H2Dialect;
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.MySqlDialect;
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.Oracle11gDialect;
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.PostgreSqlDialect;
 import com.github.zhouyutong.zorm.dao.jdbc.enums.DialectEnum;
+import com.github.zhouyutong.zorm.exception.DaoException;
+import com.github.zhouyutong.zorm.dao.metrics.DaoMetrics;
+import com.github.zhouyutong.zorm.dao.metrics.NoopDaoMetrics;
+import com.github.zhouyutong.zorm.dao.slowlog.SlowQueryLog;
 import lombok.Data;
 
 import javax.sql.DataSource;
@@ -16,6 +25,92 @@ import java.util.List;
 @Data
 public class JdbcSettings implements DaoSettings {
     private DialectEnum dialectEnum;
+    /**
+     * 方言,为null时按dialectEnum使用默认方言,其中oracle默认为Oracle11gDialect,12c及以上建议配置Oracle12cDialect
+     */
+    private Dialect dialect;
     private List<DataSource> writeDataSource;
     private List<DataSource> readDataSource;
+    /**
+     * 是否合并并发的相同读请求(相同sql和参数),事务中的读不合并
+     */
+    private boolean readCoalescing = false;
+    /**
+     * findOneById自动微批的时间窗口(微秒),窗口内的单主键查询合并成一次批量查询,小于等于0表示不开启
+     */
+    private long idBatchWindowMicros = 0L;
+    /**
+     * findOneById自动微批一批最多的主键数量,达到后不等时间窗口立即执行
+     */
+    private int idBatchMaxSize = 100;
+    /**
+     * findListByIds、deleteByIds单个IN中最多的主键数量,超过后分批执行(查询并行、删除顺序),小于等于0使用方言的默认值
+     */
+    private int idChunkSize = 0;
+    /**
+     * findListByIds分批查询时单次调用最多同时执行的批数(含调用线程),即最多同时占用的读连接数
+     */
+    private int idChunkParallelism = 4;
+    /**
+     * mysql下findListByIds主键数量超过该值时通过临时表绑定主键而不是IN列表,小于等于0表示不开启
+     */
+    private int idTempTableThreshold = 0;
+    /**
+     * dao指标,默认不记录,可配置InMemoryDaoMetrics或自定义实现
+     */
+    private DaoMetrics daoMetrics = NoopDaoMetrics.INSTANCE;
+    /**
+     * findListByQuery的offset大于等于该值时改写为延迟关联:子查询按相同的条件、排序和分页只取主键,再按主键关联回表取整行
+     * 条件和排序列有合适的索引时子查询只扫描索引,mysql下深分页效果最明显,小于等于0表示不开启,有groupBy的查询不改写
+     */
+    private int deferredJoinOffsetThreshold = 0;
+    /**
+     * findPage查询第一页时是否先查数据,不满一页时数据条数就是总数,不再count
+     */
+    private boolean pageCountSkipping = false;
+    /**
+     * findPage总数的缓存时间(毫秒),相同条件的总数在有效期内复用,小于等于0表示不缓存
+     */
+    private long pageTotalCacheMillis = 0L;
+    /**
+     * 慢查询日志和语句指纹top-N统计,为null表示不开启
+     */
+    private SlowQueryLog slowQueryLog;
+    /**
+     * 执行计划检查,为null表示不开启
+     */
+    private PlanChecker planChecker;
+    /**
+     * 是否开启脏字段检查,开启后update(entity)只更新dao读出或写入后变化的字段,没有变化时不发请求
+     */
+    private boolean dirtyTracking = false;
+    /**
+     * 启动时是否加载表上的索引名,用于校验Query.hint,关闭后只校验索引名的格式
+     */
+    private boolean hintValidation = true;
+    /**
+     * bulkInsert每条LOAD DATA语句导入的行数,批量插入时每次提交的行数,直接路径写入时也是每次批量绑定的行数
+     */
+    private int bulkLoadChunkSize = 10000;
+
+    public Dialect getDialect() {
+        if (dialect != null) {
+            return dialect;
+        }
+        if (dialectEnum == null) {
+            throw new DaoException("JdbcSettings必须设置dialect或dialectEnum");
+        }
+        switch (dialectEnum) {
+            case MYSQL:
+                return MySqlDialect.INSTANCE;
+            case ORACLE:
+                return Oracle11gDialect.INSTANCE;
+            case POSTGRESQL:
+                return PostgreSqlDialect.INSTANCE;
+            case H2:
+                return H2Dialect.INSTANCE;
+            default:
+                throw new DaoException("JdbcSettings不支持dialectEnum[" + dialectEnum + "]");
+        }
+    }
 }
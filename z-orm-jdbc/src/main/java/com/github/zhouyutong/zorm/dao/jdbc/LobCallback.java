@@ -0,0 +1,15 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import java.io.IOException;
+
+/**
+ * 流式读取大字段的回调,stream只在回调中有效,回调返回后随结果集一起关闭
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@FunctionalInterface
+public interface LobCallback<S, R> {
+
+    R doInStream(S stream) throws IOException;
+}
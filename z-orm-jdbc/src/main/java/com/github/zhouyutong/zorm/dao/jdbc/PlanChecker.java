@@ -0,0 +1,231 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import com.github.zhouyutong.zorm.dao.jdbc.dialect.Dialect;
+import com.github.zhouyutong.zorm.dao.jdbc.enums.DialectEnum;
+import com.github.zhouyutong.zorm.exception.DaoException;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 执行计划检查
+ * 1、按sampleRate抽样,每类sql(语句指纹)第一次被抽中时在执行前EXPLAIN一次,结果按指纹缓存,之后不再检查
+ * 2、全表扫描、filesort、临时表、预估扫描行数超过maxRowsExamined、条件列都不是任何索引的第一列时打印warn日志
+ * 3、failOnWarning为true时有警告直接抛出DaoException,用于CI中对嵌入式数据库跑用例时暴露缺失的索引
+ * 支持mysql、h2、postgresql的EXPLAIN和oracle的EXPLAIN PLAN,EXPLAIN本身失败只记录不影响查询
+ * <p>
+ * 通过JdbcSettings的planChecker属性配置,为null表示不开启,同一个实例可以被多个settings共用
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+@Slf4j
+public class PlanChecker {
+    /**
+     * 抽样比例,线上建议设置较小的值
+     */
+    @Getter
+    @Setter
+    private double sampleRate = 1.0D;
+    /**
+     * 预估扫描行数阈值
+     */
+    @Getter
+    @Setter
+    private long maxRowsExamined = 10000L;
+    /**
+     * 最多缓存的语句指纹数量,超过后不再检查新的指纹
+     */
+    @Getter
+    @Setter
+    private int maxShapes = 1000;
+    @Getter
+    @Setter
+    private boolean failOnWarning = false;
+
+    private static final Pattern PG_ROWS_PATTERN = Pattern.compile("rows=(\\d+)");
+
+    private final ConcurrentMap<String, PlanReport> reportMap = Maps.newConcurrentMap();
+
+    /**
+     * 检查一条sql的执行计划,同一指纹只检查一次
+     *
+     * @param daoName                 - dao名称
+     * @param sql                     - 待执行的sql
+     * @param valueList               - sql参数
+     * @param jdbcTemplate            - 执行sql的jdbcTemplate
+     * @param dialect                 - 方言
+     * @param unindexedColumnSupplier - 没有可用索引的条件列,只在需要EXPLAIN时计算
+     */
+    void check(String daoName, String sql, List<Object> valueList, JdbcTemplate jdbcTemplate, Dialect dialect,
+               Supplier<Collection<String>> unindexedColumnSupplier) {
+        if (sampleRate < 1.0D && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        String fingerprint = JdbcHelper.fingerprintSql(sql);
+        if (reportMap.containsKey(fingerprint) || reportMap.size() >= maxShapes) {
+            return;
+        }
+
+        PlanReport report = new PlanReport(daoName, fingerprint);
+        try {
+            if (DialectEnum.ORACLE.equals(dialect.getDialectEnum())) {
+                explainOracle(report, sql, jdbcTemplate);
+            } else {
+                explain(report, sql, valueList, jdbcTemplate);
+            }
+        } catch (RuntimeException e) {
+            report.error = e.getMessage();
+            log.warn("explain failed, dao={}, statement={}", daoName, fingerprint, e);
+        }
+
+        if (report.fullScan) {
+            report.warnings.add("全表扫描");
+        }
+        if (report.filesort) {
+            report.warnings.add("filesort排序");
+        }
+        if (report.temporary) {
+            report.warnings.add("使用临时表");
+        }
+        if (report.estimatedRows > maxRowsExamined) {
+            report.warnings.add("预估扫描行数[" + report.estimatedRows + "]超过[" + maxRowsExamined + "]");
+        }
+        Collection<String> unindexedColumns = unindexedColumnSupplier.get();
+        if (!unindexedColumns.isEmpty()) {
+            report.warnings.add("条件列" + unindexedColumns + "都不是任何索引的第一列");
+        }
+
+        if (reportMap.putIfAbsent(fingerprint, report) == null && !report.warnings.isEmpty()) {
+            log.warn("plan warning, dao={}, statement={}, warnings={}, plan={}", daoName, fingerprint, report.warnings, report.plan);
+            if (failOnWarning) {
+                throw new DaoException("执行计划检查未通过,dao=" + daoName + ",statement=" + fingerprint + ",warnings=" + report.warnings);
+            }
+        }
+    }
+
+    /**
+     * mysql每张表一行,type=ALL为全表扫描,Extra中有filesort和临时表
+     * h2只返回一列PLAN文本,tableScan为全表扫描,ORDER BY没有用索引排序(index sorted)时为filesort
+     * postgresql每个计划节点一行QUERY PLAN文本,Seq Scan为全表扫描,Sort节点为filesort
+     */
+    private void explain(PlanReport report, String sql, List<Object> valueList, JdbcTemplate jdbcTemplate) {
+        Object[] args = valueList == null ? new Object[0] : valueList.toArray();
+        List<String> planList = Lists.newArrayList();
+        for (Map<String, Object> row : jdbcTemplate.queryForList("EXPLAIN " + sql, args)) {
+            if (row.containsKey("PLAN") && !row.containsKey("type")) {
+                String plan = String.valueOf(row.get("PLAN"));
+                planList.add(plan);
+                report.fullScan |= plan.contains(".tableScan");
+                report.filesort |= plan.contains("ORDER BY") && !plan.contains("index sorted");
+                continue;
+            }
+            if (row.containsKey("QUERY PLAN")) {
+                String plan = String.valueOf(row.get("QUERY PLAN"));
+                planList.add(plan.trim());
+                report.fullScan |= plan.contains("Seq Scan");
+                report.filesort |= plan.trim().startsWith("Sort ") || plan.contains("->  Sort ");
+                Matcher matcher = PG_ROWS_PATTERN.matcher(plan);
+                if (matcher.find()) {
+                    report.estimatedRows = Math.max(report.estimatedRows, Long.parseLong(matcher.group(1)));
+                }
+                continue;
+            }
+
+            String type = String.valueOf(row.get("type"));
+            String extra = String.valueOf(row.get("Extra"));
+            Object rows = row.get("rows");
+            planList.add("table=" + row.get("table") + ",type=" + type + ",key=" + row.get("key") + ",rows=" + rows + ",Extra=" + extra);
+            report.fullScan |= "ALL".equalsIgnoreCase(type);
+            report.filesort |= extra.contains("Using filesort");
+            report.temporary |= extra.contains("Using temporary");
+            if (rows instanceof Number) {
+                report.estimatedRows = Math.max(report.estimatedRows, ((Number) rows).longValue());
+            }
+        }
+        report.plan = planList.toString();
+    }
+
+    /**
+     * oracle的EXPLAIN PLAN不绑定参数值,?替换为命名占位符后用Statement执行,结果从plan_table读取后删除
+     */
+    private void explainOracle(PlanReport report, String sql, JdbcTemplate jdbcTemplate) {
+        String statementId = "zorm_" + ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+        StringBuilder namedSql = new StringBuilder();
+        int bindIndex = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                namedSql.append(":").append(++bindIndex);
+            } else {
+                namedSql.append(c);
+            }
+        }
+
+        jdbcTemplate.execute("EXPLAIN PLAN SET STATEMENT_ID = '" + statementId + "' FOR " + namedSql);
+        try {
+            List<String> planList = Lists.newArrayList();
+            List<Map<String, Object>> rowList = jdbcTemplate.queryForList(
+                    "SELECT operation, options, object_name, cardinality FROM plan_table WHERE statement_id = ? ORDER BY id", statementId);
+            for (Map<String, Object> row : rowList) {
+                String operation = String.valueOf(row.get("operation"));
+                String options = String.valueOf(row.get("options"));
+                Object cardinality = row.get("cardinality");
+                planList.add(operation + " " + options + " " + row.get("object_name") + " rows=" + cardinality);
+                report.fullScan |= "TABLE ACCESS".equals(operation) && "FULL".equals(options);
+                report.filesort |= "SORT".equals(operation) && ("ORDER BY".equals(options) || "GROUP BY".equals(options));
+                report.temporary |= operation.startsWith("TEMP TABLE");
+                if (cardinality instanceof Number) {
+                    report.estimatedRows = Math.max(report.estimatedRows, ((Number) cardinality).longValue());
+                }
+            }
+            report.plan = planList.toString();
+        } finally {
+            jdbcTemplate.update("DELETE FROM plan_table WHERE statement_id = ?", statementId);
+        }
+    }
+
+    /**
+     * 已检查的所有语句指纹
+     *
+     * @return
+     */
+    public List<PlanReport> getReports() {
+        return Lists.newArrayList(reportMap.values());
+    }
+
+    /**
+     * 有警告的语句指纹,CI中可断言为空
+     *
+     * @return
+     */
+    public List<PlanReport> getWarnedReports() {
+        List<PlanReport> reportList = Lists.newArrayList();
+        for (PlanReport report : reportMap.values()) {
+            if (!report.getWarnings().isEmpty()) {
+                reportList.add(report);
+            }
+        }
+        return reportList;
+    }
+
+    /**
+     * 清空缓存,表结构或索引变更后重新检查
+     */
+    public void clear() {
+        reportMap.clear();
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import com.google.common.collect.Lists;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 一类sql(语句指纹)的执行计划检查结果
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Getter
+@ToString
+public class PlanReport {
+    private final String daoName;
+    private final String fingerprint;
+    /**
+     * EXPLAIN的原始结果摘要
+     */
+    String plan;
+    boolean fullScan;
+    boolean filesort;
+    boolean temporary;
+    /**
+     * 预估扫描行数,-1表示数据库没有给出
+     */
+    long estimatedRows = -1L;
+    final List<String> warnings = Lists.newArrayList();
+    /**
+     * EXPLAIN执行失败的原因
+     */
+    String error;
+
+    PlanReport(String daoName, String fingerprint) {
+        this.daoName = daoName;
+        this.fingerprint = fingerprint;
+    }
+}
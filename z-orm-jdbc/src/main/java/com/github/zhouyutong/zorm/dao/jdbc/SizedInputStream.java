@@ -0,0 +1,23 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import lombok.Getter;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * 已知长度的二进制流,赋值给InputStream类型的entity属性后按setBinaryStream(index, stream, length)绑定
+ * 部分驱动只有知道长度时才能不把流整体读入内存直接发送
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public class SizedInputStream extends FilterInputStream {
+    @Getter
+    private final long length;
+
+    public SizedInputStream(InputStream in, long length) {
+        super(in);
+        this.length = length;
+    }
+}
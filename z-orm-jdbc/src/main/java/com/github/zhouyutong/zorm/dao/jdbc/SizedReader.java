@@ -0,0 +1,22 @@
+package com.github.zhouyutong.zorm.dao.jdbc;
+
+import lombok.Getter;
+
+import java.io.FilterReader;
+import java.io.Reader;
+
+/**
+ * 已知长度(字符数)的字符流,赋值给Reader类型的entity属性后按setCharacterStream(index, reader, length)绑定
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+public class SizedReader extends FilterReader {
+    @Getter
+    private final long length;
+
+    public SizedReader(Reader in, long length) {
+        super(in);
+        this.length = length;
+    }
+}
@@ -1,5 +1,7 @@
 package com.github.zhouyutong.zorm.dao.jdbc.annotation;
 
+import org.springframework.jdbc.core.SqlTypeValue;
+
 import java.lang.annotation.*;
 
 /**
@@ -14,4 +16,8 @@ public @interface Column {
     String value() default "";
     //是否持久化
     boolean isTransient() default true;
+    //对应的java.sql.Types,默认根据字段类型推断
+    int sqlType() default SqlTypeValue.TYPE_UNKNOWN;
+    //是否延迟加载,为true时默认查询(没有指定fields)不包含该列,需要时通过dao.load批量加载,用于大的TEXT/BLOB列
+    boolean lazy() default false;
 }
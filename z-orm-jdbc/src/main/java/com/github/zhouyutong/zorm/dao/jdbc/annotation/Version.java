@@ -0,0 +1,16 @@
+package com.github.zhouyutong.zorm.dao.jdbc.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 标注entity中的乐观锁版本字段,类型只能是Long或Integer
+ * 每次更新自动version=version+1,update(entity)和带version值的updateById按version匹配,没有匹配的行抛出OptimisticLockException
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ */
+@Target({ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Version {
+}
@@ -0,0 +1,116 @@
+package com.github.zhouyutong.zorm.dao.jdbc.dialect;
+
+import com.github.zhouyutong.zorm.constant.MixedConstant;
+import com.github.zhouyutong.zorm.constant.SymbolConstant;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+
+/**
+ * 方言的默认实现,子类只需要覆盖有差异的部分
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public abstract class AbstractDialect implements Dialect {
+    /**
+     * IN列表和批量的默认大小
+     * oracle的IN超过1000报ORA-01795,其他数据库虽然没有硬性限制但过长的IN会生成巨大的语句
+     */
+    protected static final int DEFAULT_LIMIT = 1000;
+
+    @Override
+    public boolean supportsGeneratedKeys() {
+        return true;
+    }
+
+    @Override
+    public String sequenceNextValSql(String sequence) {
+        return null;
+    }
+
+    @Override
+    public String loadDataSql(String tableName, List<String> columns) {
+        return null;
+    }
+
+    @Override
+    public String bulkInsertSql(String tableName, List<String> columns) {
+        return insertSql(tableName, columns);
+    }
+
+    @Override
+    public boolean directPathBulkInsert() {
+        return false;
+    }
+
+    @Override
+    public int maxInListSize() {
+        return DEFAULT_LIMIT;
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return DEFAULT_LIMIT;
+    }
+
+    @Override
+    public int streamingFetchSize() {
+        return DEFAULT_LIMIT;
+    }
+
+    @Override
+    public String tableIndexHint(String indexName, boolean force) {
+        return SymbolConstant.EMPTY;
+    }
+
+    @Override
+    public String selectIndexHint(String tableName, String indexName) {
+        return SymbolConstant.EMPTY;
+    }
+
+    /**
+     * 逗号拼接,prefix和suffix加在每一项的前后
+     */
+    protected static String join(List<String> items, String prefix, String suffix) {
+        StringBuilder sb = new StringBuilder();
+        for (String item : items) {
+            sb.append(prefix).append(item).append(suffix).append(SymbolConstant.COMMA);
+        }
+        if (sb.length() > MixedConstant.INT_0) {
+            sb.deleteCharAt(sb.length() - MixedConstant.INT_1);//去掉最后一个,
+        }
+        return sb.toString();
+    }
+
+    /**
+     * n个逗号分隔的?
+     */
+    protected static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = MixedConstant.INT_0; i < n; i++) {
+            sb.append(SymbolConstant.QUESTION).append(SymbolConstant.COMMA);
+        }
+        if (sb.length() > MixedConstant.INT_0) {
+            sb.deleteCharAt(sb.length() - MixedConstant.INT_1);//去掉最后一个,
+        }
+        return sb.toString();
+    }
+
+    /**
+     * columns中除keyColumns外的列
+     */
+    protected static List<String> nonKeyColumns(List<String> columns, List<String> keyColumns) {
+        List<String> list = Lists.newArrayList(columns);
+        list.removeAll(keyColumns);
+        return list;
+    }
+
+    /**
+     * INSERT INTO table (c1,c2) VALUES (?,?)
+     */
+    protected static String insertSql(String tableName, List<String> columns) {
+        return "INSERT INTO " + tableName + " (" + join(columns, SymbolConstant.EMPTY, SymbolConstant.EMPTY) + ") VALUES (" + placeholders(columns.size()) + ")";
+    }
+}
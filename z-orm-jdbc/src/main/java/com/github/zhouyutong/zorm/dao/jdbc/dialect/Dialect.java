@@ -0,0 +1,109 @@
+package com.github.zhouyutong.zorm.dao.jdbc.dialect;
+
+import com.github.zhouyutong.zorm.dao.jdbc.enums.DialectEnum;
+
+import java.util.List;
+
+/**
+ * 数据库方言,负责各数据库语法和限制上的差异
+ * 实现必须是无状态的,同一个实例会被多个dao共用
+ * 通过JdbcSettings的dialect属性选择,为null时按dialectEnum使用默认方言
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public interface Dialect {
+    /**
+     * 方言所属的数据库
+     */
+    DialectEnum getDialectEnum();
+
+    /**
+     * 分页
+     *
+     * @param sql    - 不带分页的查询语句
+     * @param offset - 跳过的行数,大于等于0
+     * @param limit  - 返回的行数,大于0
+     * @return - 带分页的查询语句
+     */
+    String limit(String sql, int offset, int limit);
+
+    /**
+     * 主键没有赋值且entity没有设置sequence时,能否通过PreparedStatement的generatedKeys取回数据库生成的主键
+     */
+    boolean supportsGeneratedKeys();
+
+    /**
+     * 从sequence取下一个值的查询语句
+     *
+     * @param sequence - sequence名字
+     * @return - 不支持sequence时返回null
+     */
+    String sequenceNextValSql(String sequence);
+
+    /**
+     * 按唯一键存在则更新、不存在则插入的语句,参数按columns的顺序绑定
+     *
+     * @param tableName  - 表名
+     * @param columns    - 插入的列
+     * @param keyColumns - 判断是否存在的唯一键列,必须包含在columns中
+     * @return - 存在时更新columns中除keyColumns外的所有列
+     */
+    String upsert(String tableName, List<String> columns, List<String> keyColumns);
+
+    /**
+     * 从客户端数据流导入的语句,数据流为UTF-8文本:列之间制表符分隔,行之间\n分隔,反斜杠转义,\N表示null
+     *
+     * @param tableName - 表名
+     * @param columns   - 导入的列,和数据流中每行的列一一对应
+     * @return - 不支持时返回null,bulkInsert退化为批量插入
+     */
+    String loadDataSql(String tableName, List<String> columns);
+
+    /**
+     * bulkInsert批量插入使用的语句,参数按columns的顺序绑定,可以带直接路径写入等hint
+     *
+     * @param tableName - 表名
+     * @param columns   - 插入的列
+     */
+    String bulkInsertSql(String tableName, List<String> columns);
+
+    /**
+     * bulkInsertSql是否为直接路径写入,是时一个事务中只能执行一次,bulkInsert每块只执行一次批量并立即提交
+     */
+    boolean directPathBulkInsert();
+
+    /**
+     * 单个IN列表最多的元素个数
+     */
+    int maxInListSize();
+
+    /**
+     * 一次批量执行或一条多行VALUES语句最多的行数
+     */
+    int maxBatchSize();
+
+    /**
+     * 流式读取大结果集时的fetchSize
+     */
+    int streamingFetchSize();
+
+    /**
+     * 跟在表名后的索引hint
+     *
+     * @param indexName - 索引名
+     * @param force     - 是否强制使用
+     * @return - 不支持时返回空字符串
+     */
+    String tableIndexHint(String indexName, boolean force);
+
+    /**
+     * 跟在SELECT后的索引hint
+     *
+     * @param tableName - 表名
+     * @param indexName - 索引名
+     * @return - 不支持时返回空字符串
+     */
+    String selectIndexHint(String tableName, String indexName);
+}
@@ -0,0 +1,41 @@
+package com.github.zhouyutong.zorm.dao.jdbc.dialect;
+
+import com.github.zhouyutong.zorm.constant.SymbolConstant;
+import com.github.zhouyutong.zorm.dao.jdbc.enums.DialectEnum;
+
+import java.util.List;
+
+/**
+ * h2方言,用于嵌入式数据库跑用例
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public class H2Dialect extends AbstractDialect {
+    public static final H2Dialect INSTANCE = new H2Dialect();
+
+    @Override
+    public DialectEnum getDialectEnum() {
+        return DialectEnum.H2;
+    }
+
+    @Override
+    public String limit(String sql, int offset, int limit) {
+        return sql + "LIMIT " + limit + " OFFSET " + offset;
+    }
+
+    @Override
+    public String sequenceNextValSql(String sequence) {
+        return "SELECT NEXT VALUE FOR " + sequence;
+    }
+
+    /**
+     * MERGE INTO table (c1,c2) KEY (k) VALUES (?,?),存在时更新所有列
+     */
+    @Override
+    public String upsert(String tableName, List<String> columns, List<String> keyColumns) {
+        return "MERGE INTO " + tableName + " (" + join(columns, SymbolConstant.EMPTY, SymbolConstant.EMPTY) + ") KEY ("
+                + join(keyColumns, SymbolConstant.EMPTY, SymbolConstant.EMPTY) + ") VALUES (" + placeholders(columns.size()) + ")";
+    }
+}
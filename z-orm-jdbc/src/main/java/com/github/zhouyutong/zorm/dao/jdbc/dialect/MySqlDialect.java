@@ -0,0 +1,70 @@
+package com.github.zhouyutong.zorm.dao.jdbc.dialect;
+
+import com.github.zhouyutong.zorm.constant.MixedConstant;
+import com.github.zhouyutong.zorm.constant.SymbolConstant;
+import com.github.zhouyutong.zorm.dao.jdbc.enums.DialectEnum;
+
+import java.util.List;
+
+/**
+ * mysql方言
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public class MySqlDialect extends AbstractDialect {
+    public static final MySqlDialect INSTANCE = new MySqlDialect();
+
+    @Override
+    public DialectEnum getDialectEnum() {
+        return DialectEnum.MYSQL;
+    }
+
+    @Override
+    public String limit(String sql, int offset, int limit) {
+        return sql + "LIMIT " + offset + SymbolConstant.COMMA + limit;
+    }
+
+    /**
+     * 更新时影响行数为2,值没有变化时为0
+     */
+    @Override
+    public String upsert(String tableName, List<String> columns, List<String> keyColumns) {
+        List<String> updateColumns = nonKeyColumns(columns, keyColumns);
+        if (updateColumns.isEmpty()) {//没有可更新的列时用无副作用的赋值代替忽略
+            updateColumns = keyColumns.subList(MixedConstant.INT_0, MixedConstant.INT_1);
+        }
+        StringBuilder sb = new StringBuilder(insertSql(tableName, columns)).append(" ON DUPLICATE KEY UPDATE ");
+        for (String column : updateColumns) {
+            sb.append(column).append(" = VALUES(").append(column).append(")").append(SymbolConstant.COMMA);
+        }
+        sb.deleteCharAt(sb.length() - MixedConstant.INT_1);//去掉最后一个,
+        return sb.toString();
+    }
+
+    /**
+     * 文件名只是占位,数据由驱动从Statement.setLocalInfileInputStream设置的流读取
+     * LOCAL导入时主键冲突和转换失败的行被忽略并产生warning,不会中断整个语句
+     * 需要连接参数allowLoadLocalInfile=true和服务端local_infile=1
+     */
+    @Override
+    public String loadDataSql(String tableName, List<String> columns) {
+        return "LOAD DATA LOCAL INFILE 'z-orm-bulk-load' IGNORE INTO TABLE " + tableName
+                + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' ("
+                + join(columns, SymbolConstant.EMPTY, SymbolConstant.EMPTY) + ")";
+    }
+
+    /**
+     * mysql驱动只有Integer.MIN_VALUE才会逐行流式读取
+     */
+    @Override
+    public int streamingFetchSize() {
+        return Integer.MIN_VALUE;
+    }
+
+    @Override
+    public String tableIndexHint(String indexName, boolean force) {
+        return (force ? "FORCE INDEX (" : "USE INDEX (") + indexName + ")";
+    }
+}
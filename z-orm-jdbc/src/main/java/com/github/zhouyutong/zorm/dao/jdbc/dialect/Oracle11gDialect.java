@@ -0,0 +1,94 @@
+package com.github.zhouyutong.zorm.dao.jdbc.dialect;
+
+import com.github.zhouyutong.zorm.constant.MixedConstant;
+import com.github.zhouyutong.zorm.constant.SymbolConstant;
+import com.github.zhouyutong.zorm.dao.jdbc.enums.DialectEnum;
+
+import java.util.List;
+
+/**
+ * oracle 11g及以下的方言
+ * 分页只能通过两层ROWNUM嵌套,主键只能通过sequence生成
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public class Oracle11gDialect extends AbstractDialect {
+    public static final Oracle11gDialect INSTANCE = new Oracle11gDialect();
+
+    @Override
+    public DialectEnum getDialectEnum() {
+        return DialectEnum.ORACLE;
+    }
+
+    @Override
+    public String limit(String sql, int offset, int limit) {
+        return "SELECT * FROM (" +
+                "SELECT ROWNUM AS RN,table_alias.* FROM (" +
+                sql +
+                ") table_alias " +
+                "WHERE ROWNUM <= " + (offset + limit) +
+                ") " +
+                "WHERE RN > " + offset;
+    }
+
+    /**
+     * oracle驱动的generatedKeys返回ROWID而不是主键值
+     */
+    @Override
+    public boolean supportsGeneratedKeys() {
+        return false;
+    }
+
+    @Override
+    public String sequenceNextValSql(String sequence) {
+        return "SELECT " + sequence + ".NEXTVAL AS ID FROM DUAL";
+    }
+
+    /**
+     * MERGE INTO table t USING (SELECT ? AS c1,? AS c2 FROM DUAL) s ON (t.k = s.k) WHEN MATCHED ... WHEN NOT MATCHED ...
+     */
+    @Override
+    public String upsert(String tableName, List<String> columns, List<String> keyColumns) {
+        StringBuilder sb = new StringBuilder("MERGE INTO ").append(tableName).append(" t USING (SELECT ");
+        sb.append(join(columns, "? AS ", SymbolConstant.EMPTY)).append(" FROM DUAL) s ON (");
+        for (int i = MixedConstant.INT_0; i < keyColumns.size(); i++) {
+            if (i > MixedConstant.INT_0) {
+                sb.append(" AND ");
+            }
+            sb.append("t.").append(keyColumns.get(i)).append(" = s.").append(keyColumns.get(i));
+        }
+        sb.append(")");
+        List<String> updateColumns = nonKeyColumns(columns, keyColumns);
+        if (!updateColumns.isEmpty()) {
+            sb.append(" WHEN MATCHED THEN UPDATE SET ");
+            for (String column : updateColumns) {
+                sb.append("t.").append(column).append(" = s.").append(column).append(SymbolConstant.COMMA);
+            }
+            sb.deleteCharAt(sb.length() - MixedConstant.INT_1);//去掉最后一个,
+        }
+        sb.append(" WHEN NOT MATCHED THEN INSERT (").append(join(columns, SymbolConstant.EMPTY, SymbolConstant.EMPTY))
+                .append(") VALUES (").append(join(columns, "s.", SymbolConstant.EMPTY)).append(")");
+        return sb.toString();
+    }
+
+    /**
+     * APPEND_VALUES使批量绑定的INSERT直接路径写入高水位线之上,不经过buffer cache,提交前本事务不能再读写该表
+     */
+    @Override
+    public String bulkInsertSql(String tableName, List<String> columns) {
+        return "INSERT /*+ APPEND_VALUES */ INTO " + tableName + " (" + join(columns, SymbolConstant.EMPTY, SymbolConstant.EMPTY)
+                + ") VALUES (" + placeholders(columns.size()) + ")";
+    }
+
+    @Override
+    public boolean directPathBulkInsert() {
+        return true;
+    }
+
+    @Override
+    public String selectIndexHint(String tableName, String indexName) {
+        return "/*+ INDEX(" + tableName + SymbolConstant.BLANK + indexName + ") */ ";
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.zhouyutong.zorm.dao.jdbc.dialect;
+
+/**
+ * oracle 12c及以上的方言
+ * 分页使用OFFSET ... FETCH NEXT,不需要ROWNUM嵌套,结果中也没有多余的RN列
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public class Oracle12cDialect extends Oracle11gDialect {
+    public static final Oracle12cDialect INSTANCE = new Oracle12cDialect();
+
+    @Override
+    public String limit(String sql, int offset, int limit) {
+        return sql + "OFFSET " + offset + " ROWS FETCH NEXT " + limit + " ROWS ONLY";
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.zhouyutong.zorm.dao.jdbc.dialect;
+
+import com.github.zhouyutong.zorm.constant.MixedConstant;
+import com.github.zhouyutong.zorm.constant.SymbolConstant;
+import com.github.zhouyutong.zorm.dao.jdbc.enums.DialectEnum;
+
+import java.util.List;
+
+/**
+ * postgresql方言
+ * 没有设置sequence时主键通过serial/identity列的generatedKeys取回
+ *
+ * @Author zhouyutong
+ * @Date 2026/10/19
+ * @thread-safe
+ */
+public class PostgreSqlDialect extends AbstractDialect {
+    public static final PostgreSqlDialect INSTANCE = new PostgreSqlDialect();
+
+    @Override
+    public DialectEnum getDialectEnum() {
+        return DialectEnum.POSTGRESQL;
+    }
+
+    @Override
+    public String limit(String sql, int offset, int limit) {
+        return sql + "LIMIT " + limit + " OFFSET " + offset;
+    }
+
+    @Override
+    public String sequenceNextValSql(String sequence) {
+        return "SELECT nextval('" + sequence + "')";
+    }
+
+    @Override
+    public String upsert(String tableName, List<String> columns, List<String> keyColumns) {
+        StringBuilder sb = new StringBuilder(insertSql(tableName, columns));
+        sb.append(" ON CONFLICT (").append(join(keyColumns, SymbolConstant.EMPTY, SymbolConstant.EMPTY)).append(")");
+        List<String> updateColumns = nonKeyColumns(columns, keyColumns);
+        if (updateColumns.isEmpty()) {
+            return sb.append(" DO NOTHING").toString();
+        }
+        sb.append(" DO UPDATE SET ");
+        for (String column : updateColumns) {
+            sb.append(column).append(" = EXCLUDED.").append(column).append(SymbolConstant.COMMA);
+        }
+        sb.deleteCharAt(sb.length() - MixedConstant.INT_1);//去掉最后一个,
+        return sb.toString();
+    }
+}
@@ -8,6 +8,8 @@ package com.github.zhouyutong.zorm.dao.jdbc.enums;
 public enum DialectEnum {
     MYSQL("mysql"),
     ORACLE("oracle"),
+    POSTGRESQL("postgresql"),
+    H2("h2"),
     ELASTICSEARCH("elasticsearch");
 
     private final String value;